@@ -0,0 +1,132 @@
+/**
+ * The BigOperator class for SRPN, which calculates the results for each operation in 'bigint' mode. See 'Operator' class.
+ * Results are exact, so never saturate, but a multiplication or power whose result could be over 'MAX_BITS' bits long
+ * is refused, so that a single line cannot use up all of the memory.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBigProcessInput.java
+ */
+
+import java.math.BigInteger;
+
+public enum BigOperator{
+	ADD(SrpnProgram.ADD),
+	SUBTRACT(SrpnProgram.SUB),
+	MULTIPLY(SrpnProgram.MUL),
+	DIVIDE(SrpnProgram.DIV),
+	MODULUS(SrpnProgram.MOD),
+	EXPONENT(SrpnProgram.POW);
+
+	// The longest result, in bits, which an operation may produce
+	static final int MAX_BITS = 1 << 20;
+
+	// Holds the operator for each instruction, so an operation can be found without a switch
+	private static final BigOperator[] BY_OPCODE = new BigOperator[SrpnProgram.POW + 1];
+
+	static{
+		for(BigOperator operator : values()){
+			BY_OPCODE[operator.opcode] = operator;
+		}
+	}
+
+	// The instruction for this operation. See 'SrpnProgram' class.
+	final int opcode;
+
+	BigOperator(int opcode){
+		this.opcode = opcode;
+	}
+
+	/**
+	 * Method used to calculate the result of the operation, which must not be undefined. See 'undefinedError' method.
+	 *
+	 * @param operandOne
+	 * 			the first operand that the operation is going to be performed on, which was on the top of the stack
+	 * @param operandTwo
+	 * 			the second operand that the operation is going to be performed on, which was below it
+	 *
+	 * @return the exact result
+	 */
+	public BigInteger apply(BigInteger operandOne, BigInteger operandTwo){
+		switch(this){
+		case ADD:
+			return operandTwo.add(operandOne);
+		case SUBTRACT:
+			return operandTwo.subtract(operandOne);
+		case MULTIPLY:
+			return operandTwo.multiply(operandOne);
+		case DIVIDE:
+			// Both round towards 0, as integer division does
+			return operandTwo.divide(operandOne);
+		case MODULUS:
+			return operandTwo.remainder(operandOne);
+		default:
+			// 0, 1 and -1 can be raised to any power, so only whether their exponent is 0 or odd is needed
+			if(hasBoundedPowers(operandTwo)){
+				if(operandOne.signum() == 0){
+					return BigInteger.ONE;
+				}
+				return (operandTwo.signum() < 0 && !operandOne.testBit(0)) ? BigInteger.ONE : operandTwo;
+			}
+			return operandTwo.pow(operandOne.intValueExact());
+		}
+	}
+
+	/**
+	 * Method used to check if the operation has no result for its operands, i.e. a division by 0, a negative power,
+	 * or a result which would be too large.
+	 *
+	 * @param operandOne
+	 * 			the first operand that the operation is going to be performed on
+	 * @param operandTwo
+	 * 			the second operand that the operation is going to be performed on
+	 *
+	 * @return the error to be printed, or null if the operation has a result
+	 */
+	public String undefinedError(BigInteger operandOne, BigInteger operandTwo){
+		switch(this){
+		case MULTIPLY:
+			// A product is at most as long as both of its operands together
+			if((long) operandOne.bitLength() + operandTwo.bitLength() > MAX_BITS){
+				return "Result too large.";
+			}
+			return null;
+		case DIVIDE:
+		case MODULUS:
+			return (operandOne.signum() == 0) ? "Divide by 0." : null;
+		case EXPONENT:
+			if(operandOne.signum() < 0){
+				return "Negative power.";
+			}
+			// As with a product, a power is at most as long as its base once for each time it is multiplied in
+			if(!hasBoundedPowers(operandTwo)
+					&& (operandOne.bitLength() > 31 || (long) operandTwo.abs().bitLength() * operandOne.intValue() > MAX_BITS)){
+				return "Result too large.";
+			}
+			return null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Method used to check if a base is 0, 1 or -1, whose powers are always one of 0, 1 or -1.
+	 */
+	private static boolean hasBoundedPowers(BigInteger base){
+		// The bit length excludes the sign, so is 0 for both 0 and -1
+		return base.bitLength() == 0 || base.equals(BigInteger.ONE);
+	}
+
+	/**
+	 * Method used to find the operator for an instruction.
+	 *
+	 * @param opcode
+	 * 			one of the operation instructions, from 'SrpnProgram.ADD' to 'SrpnProgram.POW'
+	 *
+	 * @return the operator
+	 */
+	public static BigOperator forOpcode(int opcode){
+		return BY_OPCODE[opcode];
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * The LongOperator class for SRPN, which calculates the results for each operation in 'int64' mode. See 'Operator' class.
+ * Each operation calculates its result once, detects overflow from the bits of the result rather than by widening,
+ * and saturates it to the minimum or maximum long value.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnLongProcessInput.java
+ */
+
+public enum LongOperator{
+	ADD(SrpnProgram.ADD, null),
+	SUBTRACT(SrpnProgram.SUB, null),
+	MULTIPLY(SrpnProgram.MUL, null),
+	DIVIDE(SrpnProgram.DIV, "Divide by 0."),
+	MODULUS(SrpnProgram.MOD, "Divide by 0."),
+	EXPONENT(SrpnProgram.POW, "Negative power.");
+
+	// Holds the operator for each instruction, so an operation can be found without a switch
+	private static final LongOperator[] BY_OPCODE = new LongOperator[SrpnProgram.POW + 1];
+
+	static{
+		for(LongOperator operator : values()){
+			BY_OPCODE[operator.opcode] = operator;
+		}
+	}
+
+	// The instruction for this operation. See 'SrpnProgram' class.
+	final int opcode;
+	// The error printed if the operation is undefined for its operands, or null if it never is
+	final String undefinedError;
+
+	LongOperator(int opcode, String undefinedError){
+		this.opcode = opcode;
+		this.undefinedError = undefinedError;
+	}
+
+	/**
+	 * Method used to calculate the result of the operation.
+	 *
+	 * @param operandOne
+	 * 			the first operand that the operation is going to be performed on, which was on the top of the stack
+	 * @param operandTwo
+	 * 			the second operand that the operation is going to be performed on, which was below it
+	 *
+	 * @return the result, saturated to the long range
+	 */
+	public long apply(long operandOne, long operandTwo){
+		long result;
+		switch(this){
+		case ADD:
+			result = operandTwo + operandOne;
+			// Overflow has occured if both operands have a different sign to the result
+			if(((operandTwo ^ result) & (operandOne ^ result)) < 0){
+				return operandTwo < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			return result;
+		case SUBTRACT:
+			result = operandTwo - operandOne;
+			if(((operandTwo ^ operandOne) & (operandTwo ^ result)) < 0){
+				return operandTwo < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			return result;
+		case MULTIPLY:
+			result = operandTwo * operandOne;
+			// The high half of the full product is only the sign of the low half if there was no overflow
+			if(Math.multiplyHigh(operandTwo, operandOne) != (result >> 63)){
+				return ((operandTwo ^ operandOne) < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			return result;
+		case DIVIDE:
+			// Only the minimum long value divided by -1 can leave the long range
+			if(operandTwo == Long.MIN_VALUE && operandOne == -1){
+				return Long.MAX_VALUE;
+			}
+			return operandTwo / operandOne;
+		case MODULUS:
+			return operandTwo % operandOne;
+		default:
+			return power(operandTwo, operandOne);
+		}
+	}
+
+	/**
+	 * Method used to check if the operation has no result for its first operand, i.e. a division by 0 or a negative power.
+	 *
+	 * @param operandOne
+	 * 			the first operand that the operation is going to be performed on
+	 *
+	 * @return whether or not the operation is undefined
+	 */
+	public boolean isUndefined(long operandOne){
+		switch(this){
+		case DIVIDE:
+		case MODULUS:
+			return operandOne == 0;
+		case EXPONENT:
+			return operandOne < 0;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Method used to find the operator for an instruction.
+	 *
+	 * @param opcode
+	 * 			one of the operation instructions, from 'SrpnProgram.ADD' to 'SrpnProgram.POW'
+	 *
+	 * @return the operator
+	 */
+	public static LongOperator forOpcode(int opcode){
+		return BY_OPCODE[opcode];
+	}
+
+	/**
+	 * Method used to raise a long to a power by repeatedly squaring the base, saturating the result to the long range.
+	 * Stops as soon as the result is certain to be outside of the long range.
+	 *
+	 * @param base
+	 * 			the long which is raised to the power
+	 * @param exponent
+	 * 			the power, which must not be negative
+	 *
+	 * @return the saturated result
+	 */
+	public static long power(long base, long exponent){
+		if(exponent == 0){
+			return 1;
+		}
+		if(base == 0 || base == 1){
+			return base;
+		}
+		if(base == -1){
+			return ((exponent & 1) == 0) ? 1 : -1;
+		}
+		boolean isNegative = base < 0 && (exponent & 1) == 1;
+		long saturated = isNegative ? Long.MIN_VALUE : Long.MAX_VALUE;
+		// The magnitude of the minimum long value cannot be held as a positive long
+		if(base == Long.MIN_VALUE){
+			return (exponent == 1) ? base : saturated;
+		}
+
+		long baseMagnitude = Math.abs(base);
+		long result = 1;
+		while(true){
+			if((exponent & 1) == 1){
+				long high = Math.multiplyHigh(result, baseMagnitude);
+				result *= baseMagnitude;
+				if(high != 0 || result < 0){
+					return saturated;
+				}
+			}
+			exponent >>>= 1;
+			if(exponent == 0){
+				break;
+			}
+			// The remaining bits of the exponent would multiply the result by at least this much
+			long high = Math.multiplyHigh(baseMagnitude, baseMagnitude);
+			baseMagnitude *= baseMagnitude;
+			if(high != 0 || baseMagnitude < 0){
+				return saturated;
+			}
+		}
+		return isNegative ? -result : result;
+	}
+}
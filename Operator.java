@@ -1,100 +1,189 @@
 /**
  * The operator class for SRPN, which deals with calculating the results for each operation.
- * 
+ * Each operation calculates its result once, wide enough that it cannot overflow, and saturates it
+ * to the minimum or maximum integer value, so the result can be pushed straight to the stack.
+ *
  * @author Thomas Vanner
  * @version 1.0
  * @release 25/11/2016
  * @See SrpnProcessInput.java
  */
 
-public class Operator{
-	SrpnStack srpnStack;
+public enum Operator{
+	ADD(SrpnProgram.ADD, null),
+	SUBTRACT(SrpnProgram.SUB, null),
+	MULTIPLY(SrpnProgram.MUL, null),
+	DIVIDE(SrpnProgram.DIV, "Divide by 0."),
+	MODULUS(SrpnProgram.MOD, "Divide by 0."),
+	EXPONENT(SrpnProgram.POW, "Negative power.");
 
-	/**
-	 * Method used to get the contents of the current stack.
-	 * 
-	 * @param stack
-	 * 			the stack variable
-	 */
-	public void setStack(SrpnStack stack){
-		srpnStack = stack;
+	// Holds the operator for each instruction, so an operation can be found without a switch
+	private static final Operator[] BY_OPCODE = new Operator[SrpnProgram.POW + 1];
+
+	static{
+		for(Operator operator : values()){
+			BY_OPCODE[operator.opcode] = operator;
+		}
+	}
+
+	// The instruction for this operation. See 'SrpnProgram' class.
+	final int opcode;
+	// The error printed if the operation is undefined for its operands, or null if it never is
+	final String undefinedError;
+
+	Operator(int opcode, String undefinedError){
+		this.opcode = opcode;
+		this.undefinedError = undefinedError;
 	}
-	
+
 	/**
-	 * Method used to add two operands together, and push the result to the stack.
-	 * 
+	 * Method used to calculate the result of the operation.
+	 * A switch is used rather than a method for each operator, so the interpreter's call stays a single, inlinable method.
+	 *
 	 * @param operandOne
-	 * 			the first operand that the operation is going to be performed on
+	 * 			the first operand that the operation is going to be performed on, which was on the top of the stack
 	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 * 			the second operand that the operation is going to be performed on, which was below it
+	 *
+	 * @return the result, saturated to the integer range
 	 */
-	public void addOperands(int operandOne, int operandTwo){
-		int calculationResult = operandTwo + operandOne;
-		srpnStack.pushInt(calculationResult);
+	public int apply(int operandOne, int operandTwo){
+		switch(this){
+		case ADD:
+			return saturate((long) operandTwo + operandOne);
+		case SUBTRACT:
+			return saturate((long) operandTwo - operandOne);
+		case MULTIPLY:
+			return saturate((long) operandTwo * operandOne);
+		case DIVIDE:
+			// Only the minimum integer value divided by -1 can leave the integer range
+			return saturate((long) operandTwo / operandOne);
+		case MODULUS:
+			return operandTwo % operandOne;
+		default:
+			return saturate(power(operandTwo, operandOne));
+		}
 	}
 
 	/**
-	 * Method used to subtract two operands from each other, and push the result to the stack.
-	 * 
+	 * Method used to check if the result of the operation is outside of the integer range, so would be saturated by 'apply'.
+	 *
 	 * @param operandOne
-	 * 			the first operand that the operation is going to be performed on
+	 * 			the first operand, for which the operation must not be undefined
 	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 * 			the second operand
+	 *
+	 * @return whether or not the result is saturated
 	 */
-	public void subtractOperands(int operandOne, int operandTwo){
-		int calculationResult = operandTwo - operandOne;
-		srpnStack.pushInt(calculationResult);	
+	public boolean saturates(int operandOne, int operandTwo){
+		long result;
+		switch(this){
+		case ADD:
+			result = (long) operandTwo + operandOne;
+			break;
+		case SUBTRACT:
+			result = (long) operandTwo - operandOne;
+			break;
+		case MULTIPLY:
+			result = (long) operandTwo * operandOne;
+			break;
+		case DIVIDE:
+			result = (long) operandTwo / operandOne;
+			break;
+		case MODULUS:
+			return false;
+		default:
+			result = power(operandTwo, operandOne);
+			break;
+		}
+		return result != (int) result;
 	}
 
 	/**
-	 * Method used to multiply two operands together, and push the result to the stack.
-	 * 
+	 * Method used to check if the operation has no result for its first operand, i.e. a division by 0 or a negative power.
+	 * The operands are then pushed back to the stack and 'undefinedError' is printed. See 'SrpnProcessInput' class.
+	 *
 	 * @param operandOne
 	 * 			the first operand that the operation is going to be performed on
-	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 *
+	 * @return whether or not the operation is undefined
 	 */
-	public void multiplyOperands(int operandOne, int operandTwo){
-		int calculationResult = operandTwo * operandOne;
-		srpnStack.pushInt(calculationResult);
+	public boolean isUndefined(int operandOne){
+		switch(this){
+		case DIVIDE:
+		case MODULUS:
+			return operandOne == 0;
+		case EXPONENT:
+			return operandOne < 0;
+		default:
+			return false;
+		}
 	}
 
 	/**
-	 * Method used to raise one operand to the power of another, and push the result to the stack.
-	 * 
-	 * @param operandOne
-	 * 			the first operand that the operation is going to be performed on
-	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 * Method used to find the operator for an instruction.
+	 *
+	 * @param opcode
+	 * 			one of the operation instructions, from 'SrpnProgram.ADD' to 'SrpnProgram.POW'
+	 *
+	 * @return the operator
 	 */
-	public void exponentOperands(int operandOne, int operandTwo){
-		int calculationResult = (int) Math.pow(operandTwo, operandOne);
-		srpnStack.pushInt(calculationResult);
+	public static Operator forOpcode(int opcode){
+		return BY_OPCODE[opcode];
 	}
 
 	/**
-	 * Method used to divide one operand by the other, and push the result to the stack.
-	 * 
-	 * @param operandOne
-	 * 			the first operand that the operation is going to be performed on
-	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 * Method used to saturate a result which may be outside of the integer range.
+	 *
+	 * @param result
+	 * 			the exact result
+	 *
+	 * @return the result, or the maximum or minimum integer value if it was over or under saturated
 	 */
-	public void divideOperands(int operandOne, int operandTwo){
-		int calculationResult = operandTwo / operandOne;
-		srpnStack.pushInt(calculationResult);
-	}	
+	static int saturate(long result){
+		if(result > 2147483647){
+			return 2147483647;
+		}
+		else if(result < -2147483648){
+			return -2147483648;
+		}
+		return (int) result;
+	}
 
 	/**
-	 * Method used to perform the modulus of one operand on the other, and push the result to the stack.
-	 * 
-	 * @param operandOne
-	 * 			the first operand that the operation is going to be performed on
-	 * @param operandTwo
-	 * 			the second operand that the operation is going to be performed on
+	 * Method used to raise an integer to a power exactly, by repeatedly squaring the base.
+	 * Stops as soon as the result is certain to be outside of the integer range, as it would then be saturated.
+	 *
+	 * @param base
+	 * 			the integer which is raised to the power
+	 * @param exponent
+	 * 			the power, which must not be negative
+	 *
+	 * @return the exact result if it is an integer, or a value outside of the integer range with the same sign as the result
 	 */
-	public void modulusOperands(int operandOne, int operandTwo){
-		int calculationResult = operandTwo % operandOne;
-		srpnStack.pushInt(calculationResult);
+	public static long power(int base, int exponent){
+		// The largest magnitude an integer result can have, which is that of the minimum integer value
+		final long limit = 2147483648L;
+		boolean isNegative = base < 0 && (exponent & 1) == 1;
+		long baseMagnitude = Math.abs((long) base);
+		long result = 1;
+		// Both magnitudes are kept at or below the limit, so neither can overflow a long when multiplied
+		while(exponent != 0){
+			if((exponent & 1) == 1){
+				result *= baseMagnitude;
+				if(result > limit){
+					return isNegative ? -limit - 1 : limit;
+				}
+			}
+			exponent >>>= 1;
+			if(exponent != 0){
+				baseMagnitude *= baseMagnitude;
+				// The remaining bits of the exponent would multiply the result by at least this much
+				if(baseMagnitude > limit){
+					return isNegative ? -limit - 1 : limit;
+				}
+			}
+		}
+		return isNegative ? -result : result;
 	}
 }
@@ -11,36 +11,98 @@
  */
 
 import java.io.*;
+import java.util.Arrays;
 
 public class SRPN {
 	
 	/**
 	 * Main method which gets user input, and passes it to 'SrpnProcessInput' class.
+	 * If the first argument is '--batch', input is processed in batch mode instead. See 'SrpnBatch' class.
+	 * If the first argument is '--parallel', many sessions are evaluated at once instead. See 'SrpnParallel' class.
+	 * If the first argument is '--server', sessions are served over TCP instead. See 'SrpnServer' class.
+	 * Otherwise '--mode' followed by 'int32', 'int64' or 'bigint' selects the numeric mode. See 'SrpnNumericMode' class.
+	 * '--metrics' counts the calculator's work, and prints the counts on exit. See 'SrpnMetrics' class.
+	 * '--profile' times each phase of every line, and prints their percentiles on exit. See 'SrpnProfiler' class.
 	 */
 	public static void main(String[] args) {
-		// Create SrpnProcessInput object
-		SrpnProcessInput srpn = new SrpnProcessInput();
-	
-		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-		try {
-			//Keep on accepting input from the command-line
-			while(true) {
-				// Stores user input in 'command' variable
-				String command = reader.readLine();
-				
-				//Close on an End-of-file (EOF) (Ctrl-D on the terminal)
-				if(command == null)
-				{
-					//Exit code 0 for a graceful exit
-					System.exit(0);
-				}
+		if(args.length > 0 && args[0].equals("--batch")) {
+			SrpnBatch.run(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args.length > 0 && args[0].equals("--parallel")) {
+			SrpnParallel.run(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args.length > 0 && args[0].equals("--server")) {
+			SrpnServer.run(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
-				//Otherwise, (attempt to) process the character
-				srpn.processCommand(command);          
+		SrpnNumericMode mode = SrpnNumericMode.INT32;
+		boolean metered = false;
+		boolean profiled = false;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--mode") && i + 1 < args.length) {
+				mode = parseMode(args[++i]);
+			}
+			else if(args[i].equals("--metrics")) {
+				metered = true;
+			}
+			else if(args[i].equals("--profile")) {
+				profiled = true;
 			}
+		}
+
+		checkMetrics(mode, metered);
+
+		// Create the calculator for the numeric mode, which is a SrpnProcessInput object unless a wider mode was chosen
+		SrpnCalculator srpn = mode.createCalculator(new SrpnPrintOutput(), metered ? SrpnMetrics.enable() : null,
+			profiled ? SrpnProfiler.enable() : null);
+	
+		// Input is processed as it is read, so even a very long line is never held in memory at once
+		SrpnStreamInput input = new SrpnStreamInput(srpn, mode);
+		try {
+			//Keep on accepting input from the command-line, until an End-of-file (EOF) (Ctrl-D on the terminal)
+			input.process(new InputStreamReader(System.in));
+			//Exit code 0 for a graceful exit
+			System.exit(0);
 		} catch(IOException e) {
 			System.err.println(e.getMessage());
 			System.exit(1);
 		}
 	}
+
+	/**
+	 * Method used to find the numeric mode given with '--mode', which exits with an error if there is no such mode.
+	 *
+	 * @param modeName
+	 * 			the name given with '--mode'
+	 *
+	 * @return the mode
+	 */
+	static SrpnNumericMode parseMode(String modeName) {
+		try {
+			return SrpnNumericMode.forName(modeName);
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return null;
+		}
+	}
+
+	/**
+	 * Method used to check '--metrics' is only given in 'int32' mode, before anything is counted,
+	 * which exits with an error otherwise. See 'SrpnMeteredProcessInput' class.
+	 *
+	 * @param mode
+	 * 			the numeric mode
+	 * @param metered
+	 * 			whether or not '--metrics' was given
+	 */
+	static void checkMetrics(SrpnNumericMode mode, boolean metered) {
+		if(metered && mode != SrpnNumericMode.INT32) {
+			System.err.println("Metrics are only available in int32 mode.");
+			System.exit(1);
+		}
+	}
 }
@@ -0,0 +1,405 @@
+/**
+ * The batch mode for SRPN, used when replaying large amounts of input rather than typing it.
+ * Input is read from the given files (or standard input) through large NIO buffers, and results and errors
+ * are buffered rather than flushed on every line. The output is the same as entering the input interactively.
+ * Input is processed as it is read rather than a line at a time, so a very long line is never held in memory at once.
+ * See 'SrpnStreamInput' class.
+ *
+ * Usage: java SRPN --batch [--flush-interval LINES] [--mmap] [--cache-size LINES] [--mode MODE] [--seed SEED] [--metrics] [--profile]
+ * 		[--checkpoint FILE [--checkpoint-interval LINES] [--resume]] [FILE]...
+ * A file of '-' means standard input. A flush interval of 0 (the default) only flushes at the end of the input.
+ * With '--mmap', files are memory mapped instead of read through a reader. See 'SrpnMappedInput' class.
+ * The compiled programs of the most recent 1024 different lines are cached, or as many as '--cache-size' gives,
+ * where 0 turns the cache off. See 'SrpnProgramCache' class.
+ * '--mode' selects the numeric mode, 'int32' (the default), 'int64' or 'bigint'. See 'SrpnNumericMode' class.
+ * '--seed' makes the 'r' command give seeded values rather than those of 'rand()'. See 'SrpnSplittableRandom' class.
+ * '--metrics' counts the calculator's work, and prints the counts on exit. See 'SrpnMetrics' class.
+ * '--profile' times each phase of every line, and prints their percentiles on exit. See 'SrpnProfiler' class.
+ *
+ * With '--checkpoint', a snapshot of the calculator and the position in the input is written to the given file every
+ * million lines, or as many as '--checkpoint-interval' gives, and once the input is finished. See 'SrpnSnapshot' class.
+ * The output is flushed first, so everything before a checkpoint has been written. With '--resume', a replay which
+ * was stopped carries on from the last checkpoint rather than the start, in the checkpoint's numeric mode.
+ * Output from the lines after the last checkpoint is written again. Checkpoints need input files, which are memory mapped,
+ * as standard input cannot be read from an offset.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SRPN.java
+ */
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SrpnBatch {
+	// The size of the input and output buffers
+	static final int BUFFER_SIZE = 1 << 16;
+	// How many lines are processed between checkpoints by default
+	static final long DEFAULT_CHECKPOINT_INTERVAL = 1_000_000;
+
+	SrpnCalculator srpn;
+
+	// How many lines are processed between each flush of the output, or 0 to only flush at the end
+	private int flushInterval = 0;
+	private long linesSinceFlush = 0;
+
+	// Where checkpoints are written, or null for none, and how many lines are processed between them
+	private Path checkpointFile = null;
+	private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	private long linesSinceCheckpoint = 0;
+	// The index of the file being processed, which checkpoints record
+	private int fileIndex = 0;
+
+	// Reads files by memory mapping them, or null if they are read through a reader
+	private SrpnMappedInput mappedInput = null;
+	// Reads files and standard input through a reader
+	private final SrpnStreamInput streamInput;
+
+	private PrintStream out;
+	private PrintStream err;
+
+	/**
+	 * Constructor which takes the buffered streams results and errors are written to.
+	 *
+	 * @param out
+	 * 			the stream results are written to
+	 * @param err
+	 * 			the stream errors are written to
+	 * @param flushInterval
+	 * 			how many lines are processed between each flush, or 0 to only flush at the end
+	 */
+	public SrpnBatch(PrintStream out, PrintStream err, int flushInterval) {
+		this(out, err, flushInterval, SrpnNumericMode.INT32);
+	}
+
+	/**
+	 * Constructor which takes the buffered streams results and errors are written to, and the numeric mode.
+	 *
+	 * @param out
+	 * 			the stream results are written to
+	 * @param err
+	 * 			the stream errors are written to
+	 * @param flushInterval
+	 * 			how many lines are processed between each flush, or 0 to only flush at the end
+	 * @param mode
+	 * 			the numeric mode input is processed in
+	 */
+	public SrpnBatch(PrintStream out, PrintStream err, int flushInterval, SrpnNumericMode mode) {
+		this(out, err, flushInterval, mode, null);
+	}
+
+	/**
+	 * Constructor which takes the buffered streams results and errors are written to, the numeric mode,
+	 * and the metrics the calculator's work is counted in.
+	 *
+	 * @param out
+	 * 			the stream results are written to
+	 * @param err
+	 * 			the stream errors are written to
+	 * @param flushInterval
+	 * 			how many lines are processed between each flush, or 0 to only flush at the end
+	 * @param mode
+	 * 			the numeric mode input is processed in
+	 * @param metrics
+	 * 			the metrics the calculator's work is counted in, or null for none
+	 */
+	public SrpnBatch(PrintStream out, PrintStream err, int flushInterval, SrpnNumericMode mode, SrpnMetrics metrics) {
+		this(out, err, flushInterval, mode, metrics, null);
+	}
+
+	/**
+	 * Constructor which takes the buffered streams results and errors are written to, the numeric mode,
+	 * the metrics the calculator's work is counted in, and the profiler its lines are timed by.
+	 *
+	 * @param out
+	 * 			the stream results are written to
+	 * @param err
+	 * 			the stream errors are written to
+	 * @param flushInterval
+	 * 			how many lines are processed between each flush, or 0 to only flush at the end
+	 * @param mode
+	 * 			the numeric mode input is processed in
+	 * @param metrics
+	 * 			the metrics the calculator's work is counted in, or null for none
+	 * @param profiler
+	 * 			the profiler the calculator's lines are timed by, or null for none
+	 */
+	public SrpnBatch(PrintStream out, PrintStream err, int flushInterval, SrpnNumericMode mode, SrpnMetrics metrics,
+			SrpnProfiler profiler) {
+		this.out = out;
+		this.err = err;
+		this.flushInterval = flushInterval;
+		srpn = mode.createCalculator(new SrpnPrintOutput(out, err), metrics, profiler);
+		streamInput = new SrpnStreamInput(srpn, mode, BUFFER_SIZE);
+		streamInput.setLineListener(this::lineProcessed);
+	}
+
+	/**
+	 * Method which runs batch mode with the command-line arguments that followed '--batch'.
+	 *
+	 * @param args
+	 * 			the optional flush interval, followed by the files to be processed
+	 */
+	public static void run(String[] args) {
+		int flushInterval = 0;
+		boolean memoryMapped = false;
+		int cacheSize = SrpnProgramCache.DEFAULT_CAPACITY;
+		SrpnNumericMode mode = SrpnNumericMode.INT32;
+		// The seed for the 'r' command, or null for the values of 'rand()'
+		Long seed = null;
+		boolean metered = false;
+		boolean profiled = false;
+		Path checkpointFile = null;
+		long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+		boolean resume = false;
+		List<String> files = new ArrayList<String>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--flush-interval") && i + 1 < args.length) {
+				flushInterval = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--mmap")) {
+				memoryMapped = true;
+			}
+			else if(args[i].equals("--cache-size") && i + 1 < args.length) {
+				cacheSize = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--mode") && i + 1 < args.length) {
+				mode = SRPN.parseMode(args[++i]);
+			}
+			else if(args[i].equals("--seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			}
+			else if(args[i].equals("--metrics")) {
+				metered = true;
+			}
+			else if(args[i].equals("--profile")) {
+				profiled = true;
+			}
+			else if(args[i].equals("--checkpoint") && i + 1 < args.length) {
+				checkpointFile = Paths.get(args[++i]);
+			}
+			else if(args[i].equals("--checkpoint-interval") && i + 1 < args.length) {
+				checkpointInterval = Long.parseLong(args[++i]);
+			}
+			else if(args[i].equals("--resume")) {
+				resume = true;
+			}
+			else {
+				files.add(args[i]);
+			}
+		}
+		if(files.isEmpty()) {
+			files.add("-");
+		}
+
+		// A replay carries on from its last checkpoint if there is one, in the mode it was started in
+		SrpnSnapshot checkpoint = null;
+		if(resume && checkpointFile != null && Files.exists(checkpointFile)) {
+			try {
+				checkpoint = SrpnSnapshot.read(checkpointFile);
+			} catch(IOException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+			mode = checkpoint.getMode();
+		}
+		SRPN.checkMetrics(mode, metered);
+
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE), false);
+		PrintStream err = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), BUFFER_SIZE), false);
+
+		SrpnBatch batch = new SrpnBatch(out, err, flushInterval, mode, metered ? SrpnMetrics.enable() : null,
+			profiled ? SrpnProfiler.enable() : null);
+		if(memoryMapped || checkpointFile != null) {
+			batch.setMappedInput(new SrpnMappedInput());
+		}
+		if(cacheSize > 0) {
+			batch.srpn.setProgramCache(new SrpnProgramCache(cacheSize, mode));
+		}
+		if(seed != null) {
+			batch.srpn.setRandomSource(new SrpnSplittableRandom(seed));
+		}
+		if(checkpointFile != null) {
+			batch.setCheckpoint(checkpointFile, checkpointInterval);
+		}
+		//Exit code 0 for a graceful exit
+		int exitCode = 0;
+		try {
+			batch.processFiles(files, checkpoint);
+		} catch(IOException e) {
+			err.println(e.getMessage());
+			exitCode = 1;
+		} finally {
+			// Flushed even if processing fails, so no output is lost
+			batch.flush();
+		}
+		System.exit(exitCode);
+	}
+
+	/**
+	 * Method used to memory map files rather than read them through a reader.
+	 *
+	 * @param mappedInput
+	 * 			the mapped input used to read files, or null to use a reader
+	 */
+	public void setMappedInput(SrpnMappedInput mappedInput) {
+		this.mappedInput = mappedInput;
+		// Lines which cross from one chunk of the file into the next are processed in parts, as they are from a reader
+		if(mappedInput != null) {
+			mappedInput.setStreamInput(streamInput);
+		}
+	}
+
+	/**
+	 * Method used to write a checkpoint every so many lines, and once every file has been processed.
+	 * Files must be memory mapped, so the byte offset of each line is known. See 'setMappedInput' method.
+	 *
+	 * @param file
+	 * 			the file each checkpoint replaces, or null for no checkpoints
+	 * @param interval
+	 * 			how many lines are processed between checkpoints
+	 */
+	public void setCheckpoint(Path file, long interval) {
+		checkpointFile = file;
+		checkpointInterval = interval;
+		linesSinceCheckpoint = 0;
+	}
+
+	/**
+	 * Method which processes every line of the given files in turn, carrying on from a checkpoint if one is given.
+	 *
+	 * @param files
+	 * 			the paths of the files to be processed, where '-' is standard input
+	 * @param checkpoint
+	 * 			the checkpoint of an earlier replay of the same files, which the calculator is restored to
+	 * 			and processing carries on from, or null to start from the beginning
+	 */
+	public void processFiles(List<String> files, SrpnSnapshot checkpoint) throws IOException {
+		int firstFile = 0;
+		long startOffset = 0;
+		if(checkpoint != null) {
+			srpn.restore(checkpoint);
+			firstFile = checkpoint.getInputFile();
+			startOffset = checkpoint.getInputOffset();
+		}
+		for(fileIndex = firstFile; fileIndex < files.size(); fileIndex++) {
+			processFile(files.get(fileIndex), (fileIndex == firstFile) ? startOffset : 0);
+		}
+		if(checkpointFile != null) {
+			// Resuming a finished replay processes nothing
+			writeCheckpoint(files.size(), 0);
+		}
+	}
+
+	/**
+	 * Method which processes every line of a file.
+	 *
+	 * @param file
+	 * 			the path of the file to be processed, or '-' for standard input
+	 */
+	public void processFile(String file) throws IOException {
+		processFile(file, 0);
+	}
+
+	/**
+	 * Method which processes every line of a file, from the given byte offset.
+	 *
+	 * @param file
+	 * 			the path of the file to be processed, or '-' for standard input
+	 * @param startOffset
+	 * 			the byte offset of the first line to be processed, which can only be after the start of a memory mapped file
+	 */
+	public void processFile(String file, long startOffset) throws IOException {
+		// Standard input cannot be memory mapped, so is always read through a reader
+		if(mappedInput != null && !file.equals("-")) {
+			try {
+				mappedInput.processFile(Paths.get(file), startOffset, this::processLine);
+			} catch(UncheckedIOException e) {
+				// A checkpoint could not be written
+				throw e.getCause();
+			}
+			return;
+		}
+		if(startOffset != 0 || checkpointFile != null) {
+			throw new IOException("Checkpoints need memory mapped input files, not standard input.");
+		}
+
+		ReadableByteChannel channel;
+		if(file.equals("-")) {
+			channel = new FileInputStream(FileDescriptor.in).getChannel();
+		}
+		else {
+			channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		}
+		// Undecodable input is replaced, as it is by the InputStreamReader used in interactive mode
+		CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		try(ReadableByteChannel input = channel) {
+			streamInput.process(input, decoder);
+		}
+	}
+
+	/**
+	 * Method which processes a single line, and flushes the output if the flush interval has been reached.
+	 *
+	 * @param command
+	 * 			the line to be processed
+	 */
+	public void processLine(CharSequence command) {
+		srpn.processCommand(command);
+		lineProcessed();
+	}
+
+	/**
+	 * Method which flushes the output if the flush interval has been reached, after a line has been processed.
+	 */
+	private void lineProcessed() {
+		if(flushInterval > 0 && ++linesSinceFlush >= flushInterval) {
+			flush();
+		}
+		if(checkpointFile != null && ++linesSinceCheckpoint >= checkpointInterval) {
+			try {
+				writeCheckpoint(fileIndex, mappedInput.getNextLineOffset());
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Method which flushes the output, then writes a snapshot of the calculator and where the next line starts.
+	 *
+	 * @param inputFile
+	 * 			the index of the file the next line is in
+	 * @param inputOffset
+	 * 			the byte offset of the next line in the file
+	 */
+	private void writeCheckpoint(int inputFile, long inputOffset) throws IOException {
+		flush();
+		SrpnSnapshot snapshot = srpn.snapshot();
+		snapshot.setInputPosition(inputFile, inputOffset);
+		snapshot.write(checkpointFile);
+		linesSinceCheckpoint = 0;
+	}
+
+	/**
+	 * Method which writes any buffered results and errors.
+	 */
+	public void flush() {
+		out.flush();
+		err.flush();
+		linesSinceFlush = 0;
+	}
+}
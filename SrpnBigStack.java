@@ -0,0 +1,111 @@
+/**
+ * The SrpnBigStack class for SRPN, which is the stack used in 'bigint' mode. See 'SrpnStack' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBigProcessInput.java
+ */
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+public class SrpnBigStack{
+	BigInteger[] srpnStack;
+
+	// Receives the stack's contents when printed, and any stack overflow errors
+	private SrpnOutput srpnOutput;
+
+	// Stores the index of the next free slot, which is also the amount of elements on the stack
+	private int top = 0;
+
+	/**
+	 * Constructor which initiates a new stack.
+	 *
+	 * @param output
+	 * 		the output the stack's contents and errors are sent to
+	 */
+	public SrpnBigStack(SrpnOutput output){
+		srpnStack = new BigInteger[SrpnStack.MAX_SIZE];
+		srpnOutput = output;
+	}
+
+	/**
+	 * Method used to push a value onto the stack.
+	 *
+	 * @param operationResult
+	 * 		the result of the operation. See 'BigOperator' class.
+	 */
+	public void pushBig(BigInteger operationResult){
+		// Checks if there are less than 23 elements on the stack
+		if(top < SrpnStack.MAX_SIZE){
+			srpnStack[top++] = operationResult;
+		}
+		else{
+			srpnOutput.printError("Stack overflow.");
+		}
+	}
+
+	/**
+	 * Method pop a value from the stack.
+	 *
+	 * @return the popped value.
+	 */
+	public BigInteger popBig(){
+		if(top == 0){
+			throw new EmptyStackException();
+		}
+		BigInteger value = srpnStack[--top];
+		// Lets large values be collected once they are off the stack
+		srpnStack[top] = null;
+		return value;
+	}
+
+	/**
+	 * Method used to peek at the top item on the stack.
+	 *
+	 * @return the top item on the stack.
+	 */
+	public BigInteger peekBig(){
+		if(top == 0){
+			throw new EmptyStackException();
+		}
+		return srpnStack[top - 1];
+	}
+
+	/**
+	 * Method used to find the amount of element that are currently on the stack.
+	 *
+	 * @return the size of the stack.
+	 */
+	public int size(){
+		return top;
+	}
+
+	/**
+	 * Method used to remove every element from the stack.
+	 */
+	public void clear(){
+		Arrays.fill(srpnStack, 0, top, null);
+		top = 0;
+	}
+
+	/**
+	 * Method used to copy the contents of the stack.
+	 *
+	 * @return the elements on the stack, from the bottom of the stack to the top.
+	 */
+	public BigInteger[] toArray(){
+		return Arrays.copyOf(srpnStack, top);
+	}
+
+	/**
+	 * Method used to print the conents of the stack, from the bottom of the stack to the top.
+	 */
+	public void printStack(){
+		for(int i = 0; i < top; i++){
+			srpnOutput.printResult(srpnStack[i]);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * The SrpnCalculator interface for SRPN, which is implemented by the calculator for each numeric mode,
+ * so that interactive, batch and parallel modes can process input without knowing how wide its values are.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnNumericMode.java
+ */
+
+public interface SrpnCalculator {
+
+	/**
+	 * Method used to process a line of user input.
+	 *
+	 * @param s
+	 * 		the line to be processed
+	 */
+	default void processCommand(CharSequence s) {
+		processCommand(s, 0, s.length());
+	}
+
+	/**
+	 * Method used to process a single line which is part of a larger input, e.g. one line of a program.
+	 *
+	 * @param s
+	 * 		the input holding the line
+	 * @param start
+	 * 		the index of the first character of the line
+	 * @param end
+	 * 		the index after the last character of the line
+	 */
+	void processCommand(CharSequence s, int start, int end);
+
+	/**
+	 * Method used to compile part of a line for this calculator's numeric mode, e.g. one part of a long line.
+	 * See 'SrpnCompiler' class.
+	 *
+	 * @param s
+	 * 		the input holding the part
+	 * @param start
+	 * 		the index of the first character of the part
+	 * @param end
+	 * 		the index after the last character of the part
+	 * @param program
+	 * 		the program the instructions are added to
+	 */
+	void compile(CharSequence s, int start, int end, SrpnProgram program);
+
+	/**
+	 * Method used to process a line which has already been compiled, with the same effect as 'processCommand'.
+	 * Unlike 'execute', this ends the line, which may have had earlier parts executed already.
+	 *
+	 * @param program
+	 * 		the compiled line, or the last part of it
+	 */
+	void processLine(SrpnProgram program);
+
+	/**
+	 * Method used to execute a compiled line, which must have been compiled for this calculator's numeric mode.
+	 * See 'SrpnCompiler' class.
+	 *
+	 * @param program
+	 * 		the compiled line
+	 */
+	void execute(SrpnProgram program);
+
+	/**
+	 * Method used to set the cache of compiled lines, which must compile lines for this calculator's numeric mode.
+	 *
+	 * @param cache
+	 * 		the cache used to find each line's program, or null to compile every line
+	 */
+	void setProgramCache(SrpnProgramCache cache);
+
+	/**
+	 * Method used to set the source of the values pushed by the 'r' command. See 'SrpnRandomSource' interface.
+	 *
+	 * @param source
+	 * 		the source, which is used from its current value
+	 */
+	void setRandomSource(SrpnRandomSource source);
+
+	/**
+	 * Method used to return the calculator to the state it was in when created,
+	 * with an empty stack and the 'r' command back at its first value.
+	 */
+	void reset();
+
+	/**
+	 * Method used to take a snapshot of the calculator's full state, i.e. its numeric mode, its stack,
+	 * and the 'r' command's source at its current value. See 'SrpnSnapshot' class.
+	 *
+	 * @return the snapshot, which does not change as the calculator carries on
+	 */
+	SrpnSnapshot snapshot();
+
+	/**
+	 * Method used to return the calculator to the state a snapshot was taken in.
+	 *
+	 * @param snapshot
+	 * 		the snapshot, which must have been taken in the same numeric mode
+	 * @throws IllegalArgumentException
+	 * 		if the snapshot was taken in another numeric mode
+	 */
+	void restore(SrpnSnapshot snapshot);
+}
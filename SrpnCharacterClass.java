@@ -0,0 +1,76 @@
+/**
+ * The SrpnCharacterClass class for SRPN, which classifies each character of the user input.
+ * ASCII characters are looked up in a table, so no parsing or exceptions are needed to tell them apart.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProcessInput.java
+ */
+
+public class SrpnCharacterClass{
+	// The classes a character of the user input can belong to
+	static final byte UNKNOWN = 0;
+	static final byte DIGIT = 1;
+	static final byte OPERATOR = 2;
+	static final byte COMMAND = 3;
+	static final byte COMMENT = 4;
+	static final byte WHITESPACE = 5;
+
+	// Holds the class of each of the 128 ASCII characters
+	private static final byte[] ASCII_CLASSES = new byte[128];
+
+	static{
+		for(char c = '0'; c <= '9'; c++){
+			ASCII_CLASSES[c] = DIGIT;
+		}
+		ASCII_CLASSES['+'] = OPERATOR;
+		ASCII_CLASSES['-'] = OPERATOR;
+		ASCII_CLASSES['*'] = OPERATOR;
+		ASCII_CLASSES['/'] = OPERATOR;
+		ASCII_CLASSES['%'] = OPERATOR;
+		ASCII_CLASSES['^'] = OPERATOR;
+		ASCII_CLASSES['='] = COMMAND;
+		ASCII_CLASSES['d'] = COMMAND;
+		ASCII_CLASSES['r'] = COMMAND;
+		ASCII_CLASSES['#'] = COMMENT;
+		// Only spaces separate tokens, any other whitespace is an unknown character
+		ASCII_CLASSES[' '] = WHITESPACE;
+	}
+
+	/**
+	 * Method used to find the class of a character.
+	 * Characters outside of ASCII are digits if Java treats them as decimal digits, and unknown otherwise.
+	 *
+	 * @param c
+	 * 		the character to be classified
+	 *
+	 * @return the class of the character
+	 */
+	static byte classify(char c){
+		if(c < 128){
+			return ASCII_CLASSES[c];
+		}
+		else if(Character.digit(c, 10) >= 0){
+			return DIGIT;
+		}
+		else{
+			return UNKNOWN;
+		}
+	}
+
+	/**
+	 * Method used to find the value of a character which has been classified as a digit.
+	 *
+	 * @param c
+	 * 		the digit
+	 *
+	 * @return the value of the digit, from 0 to 9
+	 */
+	static int digitValue(char c){
+		if(c < 128){
+			return c - '0';
+		}
+		return Character.digit(c, 10);
+	}
+}
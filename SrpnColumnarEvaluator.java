@@ -0,0 +1,435 @@
+/**
+ * The SrpnColumnarEvaluator class for SRPN, which evaluates one formula over many rows of input values at once.
+ * A formula is written as a line of SRPN would be, using only literals, the operators '+ - * / % ^', and placeholders
+ * '$0', '$1', ... which are replaced by the values of each row's columns, e.g. "$0 $1 + 2 *".
+ *
+ * Rows are evaluated a block at a time, with one primitive array for each slot of the stack, so each operation is a
+ * simple loop over arrays which the JIT compiler can vectorise. Results are saturated exactly as 'Operator' (or
+ * 'LongOperator' in 'int64' mode) saturates them. The few rows for which an operation is undefined, e.g. a division
+ * by 0, are evaluated again one at a time by a calculator, and their result is the value '=' would print afterwards.
+ *
+ * An evaluator does not change once compiled, so can be shared between threads.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See Operator.java
+ */
+
+import java.util.Arrays;
+
+public class SrpnColumnarEvaluator {
+	// How many rows are evaluated at a time, so that the stack's arrays stay in the cache
+	static final int BLOCK_SIZE = 4096;
+
+	// Loads the column whose index follows it. The other instructions are those of 'SrpnProgram'.
+	private static final int LOAD = -1;
+
+	private final SrpnNumericMode mode;
+	// The formula's instructions, and the literal index or column index which follows each push or load
+	private final int[] opcodes;
+	private final int[] operands;
+	private final long[] literals;
+	private final int columnCount;
+	// The deepest the stack gets while the formula is evaluated
+	private final int maxDepth;
+
+	private SrpnColumnarEvaluator(SrpnNumericMode mode, int[] opcodes, int[] operands, long[] literals, int columnCount, int maxDepth) {
+		this.mode = mode;
+		this.opcodes = opcodes;
+		this.operands = operands;
+		this.literals = literals;
+		this.columnCount = columnCount;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Method used to compile a formula for 'int32' mode.
+	 *
+	 * @param formula
+	 * 		the formula, e.g. "$0 $1 + 2 *"
+	 *
+	 * @return the compiled formula
+	 * @throws IllegalArgumentException
+	 * 		if the formula has an unsupported token, or does not leave exactly one value on the stack
+	 */
+	public static SrpnColumnarEvaluator compile(String formula) {
+		return compile(formula, SrpnNumericMode.INT32);
+	}
+
+	/**
+	 * Method used to compile a formula for a numeric mode.
+	 *
+	 * @param formula
+	 * 		the formula, e.g. "$0 $1 + 2 *"
+	 * @param mode
+	 * 		'INT32' or 'INT64', which decides how literals are read and results are saturated
+	 *
+	 * @return the compiled formula
+	 * @throws IllegalArgumentException
+	 * 		if the mode is not supported, the formula has an unsupported token,
+	 * 		or the formula does not leave exactly one value on the stack without overflowing it
+	 */
+	public static SrpnColumnarEvaluator compile(String formula, SrpnNumericMode mode) {
+		if(mode == SrpnNumericMode.BIG_INTEGER) {
+			throw new IllegalArgumentException("Columnar evaluation is only supported in int32 and int64 modes.");
+		}
+		String[] tokens = formula.trim().split(" +");
+		int[] opcodes = new int[tokens.length];
+		int[] operands = new int[tokens.length];
+		long[] literals = new long[tokens.length];
+		int literalCount = 0;
+		int columnCount = 0;
+		int depth = 0;
+		int maxDepth = 0;
+
+		for(int i = 0; i < tokens.length; i++) {
+			String token = tokens[i];
+			if(token.length() > 1 && token.charAt(0) == '$') {
+				opcodes[i] = LOAD;
+				operands[i] = placeholderColumn(token);
+				columnCount = Math.max(columnCount, operands[i] + 1);
+				depth++;
+			}
+			else if(token.length() == 1 && SrpnCompiler.opcode(token.charAt(0)) >= SrpnProgram.ADD
+					&& SrpnCompiler.opcode(token.charAt(0)) <= SrpnProgram.POW) {
+				if(depth < 2) {
+					throw new IllegalArgumentException("Stack underflow at \"" + token + "\" in formula \"" + formula + "\".");
+				}
+				opcodes[i] = SrpnCompiler.opcode(token.charAt(0));
+				depth--;
+			}
+			else {
+				opcodes[i] = SrpnProgram.PUSH;
+				operands[i] = literalCount;
+				literals[literalCount++] = literalValue(token, mode);
+				depth++;
+			}
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		if(depth != 1) {
+			throw new IllegalArgumentException("Formula \"" + formula + "\" must leave exactly one value on the stack.");
+		}
+		if(maxDepth > SrpnStack.MAX_SIZE) {
+			throw new IllegalArgumentException("Formula \"" + formula + "\" would overflow the stack.");
+		}
+		return new SrpnColumnarEvaluator(mode, opcodes, operands, Arrays.copyOf(literals, literalCount), columnCount, maxDepth);
+	}
+
+	/**
+	 * Method which reads the column index of a placeholder, e.g. 3 for '$3'.
+	 */
+	private static int placeholderColumn(String token) {
+		int column = 0;
+		for(int i = 1; i < token.length(); i++) {
+			char currentChar = token.charAt(i);
+			if(currentChar < '0' || currentChar > '9' || column > 100000) {
+				throw new IllegalArgumentException("Unsupported placeholder \"" + token + "\".");
+			}
+			column = column * 10 + (currentChar - '0');
+		}
+		return column;
+	}
+
+	/**
+	 * Method which reads a literal exactly as a calculator in the given mode would. See 'SrpnCompiler' class.
+	 */
+	private static long literalValue(String token, SrpnNumericMode mode) {
+		SrpnProgram program = new SrpnProgram();
+		SrpnCompiler.compile(token, 0, token.length(), program, mode);
+		if(program.length == 2 && program.code[0] == SrpnProgram.PUSH) {
+			return program.code[1];
+		}
+		if(program.length == 3 && program.code[0] == SrpnProgram.PUSH_LONG) {
+			return program.longOperand(0);
+		}
+		throw new IllegalArgumentException("Unsupported token \"" + token + "\", only literals, placeholders and + - * / % ^ can be used.");
+	}
+
+	/**
+	 * @return the amount of columns the formula uses, i.e. one more than its highest placeholder
+	 */
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Method used to evaluate an 'int32' formula over every row of the given columns.
+	 *
+	 * @param columns
+	 * 		the input columns, which must all be the same length. The value of '$n' in each row is taken from columns[n].
+	 *
+	 * @return the result of each row
+	 * @throws IllegalArgumentException
+	 * 		if the formula was compiled for 'int64' mode, or the columns do not match the formula
+	 */
+	public int[] evaluate(int[]... columns) {
+		if(mode != SrpnNumericMode.INT32) {
+			throw new IllegalArgumentException("Formula was compiled for " + mode.modeName + " mode.");
+		}
+		checkColumnCount(columns.length);
+		int rows = (columns.length > 0) ? columns[0].length : 0;
+		for(int[] column : columns) {
+			checkRowCount(rows, column.length);
+		}
+
+		int[] results = new int[rows];
+		int[][] slots = new int[maxDepth][Math.min(BLOCK_SIZE, rows)];
+		boolean[] undefined = new boolean[Math.min(BLOCK_SIZE, rows)];
+		SrpnProcessInput calculator = null;
+
+		for(int base = 0; base < rows; base += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, rows - base);
+			boolean anyUndefined = false;
+			int depth = 0;
+			for(int pc = 0; pc < opcodes.length; pc++) {
+				int opcode = opcodes[pc];
+				if(opcode == LOAD) {
+					System.arraycopy(columns[operands[pc]], base, slots[depth++], 0, n);
+				}
+				else if(opcode == SrpnProgram.PUSH) {
+					Arrays.fill(slots[depth++], 0, n, (int) literals[operands[pc]]);
+				}
+				else {
+					depth--;
+					anyUndefined |= applyInt(opcode, slots[depth], slots[depth - 1], undefined, n);
+				}
+			}
+			System.arraycopy(slots[0], 0, results, base, n);
+
+			// Rows with a division by 0 or a negative power are evaluated as a calculator would
+			if(anyUndefined) {
+				if(calculator == null) {
+					calculator = new SrpnProcessInput(new DiscardOutput());
+				}
+				for(int i = 0; i < n; i++) {
+					if(undefined[i]) {
+						calculator.reset();
+						calculator.execute(rowProgram(columns, null, base + i));
+						results[base + i] = calculator.srpnStack.peekInt();
+						undefined[i] = false;
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Method used to evaluate an 'int64' formula over every row of the given columns.
+	 *
+	 * @param columns
+	 * 		the input columns, which must all be the same length. The value of '$n' in each row is taken from columns[n].
+	 *
+	 * @return the result of each row
+	 * @throws IllegalArgumentException
+	 * 		if the formula was compiled for 'int32' mode, or the columns do not match the formula
+	 */
+	public long[] evaluate(long[]... columns) {
+		if(mode != SrpnNumericMode.INT64) {
+			throw new IllegalArgumentException("Formula was compiled for " + mode.modeName + " mode.");
+		}
+		checkColumnCount(columns.length);
+		int rows = (columns.length > 0) ? columns[0].length : 0;
+		for(long[] column : columns) {
+			checkRowCount(rows, column.length);
+		}
+
+		long[] results = new long[rows];
+		long[][] slots = new long[maxDepth][Math.min(BLOCK_SIZE, rows)];
+		boolean[] undefined = new boolean[Math.min(BLOCK_SIZE, rows)];
+		SrpnLongProcessInput calculator = null;
+
+		for(int base = 0; base < rows; base += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, rows - base);
+			boolean anyUndefined = false;
+			int depth = 0;
+			for(int pc = 0; pc < opcodes.length; pc++) {
+				int opcode = opcodes[pc];
+				if(opcode == LOAD) {
+					System.arraycopy(columns[operands[pc]], base, slots[depth++], 0, n);
+				}
+				else if(opcode == SrpnProgram.PUSH) {
+					Arrays.fill(slots[depth++], 0, n, literals[operands[pc]]);
+				}
+				else {
+					depth--;
+					anyUndefined |= applyLong(opcode, slots[depth], slots[depth - 1], undefined, n);
+				}
+			}
+			System.arraycopy(slots[0], 0, results, base, n);
+
+			if(anyUndefined) {
+				if(calculator == null) {
+					calculator = new SrpnLongProcessInput(new DiscardOutput());
+				}
+				for(int i = 0; i < n; i++) {
+					if(undefined[i]) {
+						calculator.reset();
+						calculator.execute(rowProgram(null, columns, base + i));
+						results[base + i] = calculator.srpnStack.peekLong();
+						undefined[i] = false;
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Method which checks that there are enough columns for the formula.
+	 */
+	private void checkColumnCount(int columnsGiven) {
+		if(columnsGiven < columnCount) {
+			throw new IllegalArgumentException("Formula uses " + columnCount + " columns, but " + columnsGiven + " were given.");
+		}
+	}
+
+	/**
+	 * Method which checks that a column is as long as the first.
+	 */
+	private static void checkRowCount(int rows, int columnRows) {
+		if(columnRows != rows) {
+			throw new IllegalArgumentException("Columns must all be the same length.");
+		}
+	}
+
+	/**
+	 * Method which applies an operation to a block of rows, with the result replacing the second operand.
+	 *
+	 * @param operation
+	 * 		the operation. See 'SrpnProgram' class.
+	 * @param first
+	 * 		the first operand of each row, which was on the top of the stack
+	 * @param second
+	 * 		the second operand of each row, which is replaced by the result
+	 * @param undefined
+	 * 		marks each row for which the operation is undefined
+	 * @param n
+	 * 		the amount of rows in the block
+	 *
+	 * @return whether or not the operation was undefined for any row
+	 */
+	private static boolean applyInt(int operation, int[] first, int[] second, boolean[] undefined, int n) {
+		boolean anyUndefined = false;
+		switch(operation) {
+		// Overflow is found from the signs of the operands and the result, so the loops stay in integer lanes
+		case SrpnProgram.ADD:
+			for(int i = 0; i < n; i++) {
+				int result = second[i] + first[i];
+				second[i] = (((second[i] ^ result) & (first[i] ^ result)) < 0) ? (second[i] < 0 ? -2147483648 : 2147483647) : result;
+			}
+			break;
+		case SrpnProgram.SUB:
+			for(int i = 0; i < n; i++) {
+				int result = second[i] - first[i];
+				second[i] = (((second[i] ^ first[i]) & (second[i] ^ result)) < 0) ? (second[i] < 0 ? -2147483648 : 2147483647) : result;
+			}
+			break;
+		case SrpnProgram.MUL:
+			for(int i = 0; i < n; i++) {
+				long result = (long) second[i] * first[i];
+				second[i] = (result == (int) result) ? (int) result : (result < 0 ? -2147483648 : 2147483647);
+			}
+			break;
+		default:
+			// The remaining operations can be undefined, so are checked row by row
+			Operator operator = Operator.forOpcode(operation);
+			for(int i = 0; i < n; i++) {
+				if(operator.isUndefined(first[i])) {
+					undefined[i] = true;
+					anyUndefined = true;
+				}
+				else {
+					second[i] = operator.apply(first[i], second[i]);
+				}
+			}
+			break;
+		}
+		return anyUndefined;
+	}
+
+	/**
+	 * Method which applies an operation to a block of rows in 'int64' mode. See 'applyInt' method.
+	 */
+	private static boolean applyLong(int operation, long[] first, long[] second, boolean[] undefined, int n) {
+		boolean anyUndefined = false;
+		switch(operation) {
+		case SrpnProgram.ADD:
+			for(int i = 0; i < n; i++) {
+				long result = second[i] + first[i];
+				// Overflow has occured if both operands have a different sign to the result
+				second[i] = (((second[i] ^ result) & (first[i] ^ result)) < 0) ? (second[i] < 0 ? Long.MIN_VALUE : Long.MAX_VALUE) : result;
+			}
+			break;
+		case SrpnProgram.SUB:
+			for(int i = 0; i < n; i++) {
+				long result = second[i] - first[i];
+				second[i] = (((second[i] ^ first[i]) & (second[i] ^ result)) < 0) ? (second[i] < 0 ? Long.MIN_VALUE : Long.MAX_VALUE) : result;
+			}
+			break;
+		default:
+			LongOperator operator = LongOperator.forOpcode(operation);
+			for(int i = 0; i < n; i++) {
+				if(operator.isUndefined(first[i])) {
+					undefined[i] = true;
+					anyUndefined = true;
+				}
+				else {
+					second[i] = operator.apply(first[i], second[i]);
+				}
+			}
+			break;
+		}
+		return anyUndefined;
+	}
+
+	/**
+	 * Method which builds the program a calculator would compile for a single row, with its placeholders replaced.
+	 *
+	 * @param intColumns
+	 * 		the input columns in 'int32' mode, or null
+	 * @param longColumns
+	 * 		the input columns in 'int64' mode, or null
+	 * @param row
+	 * 		the row
+	 *
+	 * @return the row's program
+	 */
+	private SrpnProgram rowProgram(int[][] intColumns, long[][] longColumns, int row) {
+		SrpnProgram program = new SrpnProgram(opcodes.length * 3);
+		for(int pc = 0; pc < opcodes.length; pc++) {
+			int opcode = opcodes[pc];
+			if(opcode == LOAD || opcode == SrpnProgram.PUSH) {
+				long value;
+				if(opcode == SrpnProgram.PUSH) {
+					value = literals[operands[pc]];
+				}
+				else {
+					value = (intColumns != null) ? intColumns[operands[pc]][row] : longColumns[operands[pc]][row];
+				}
+				if(mode == SrpnNumericMode.INT64) {
+					program.addLong(value);
+				}
+				else {
+					program.add(SrpnProgram.PUSH, (int) value);
+				}
+			}
+			else {
+				program.add(opcode);
+			}
+		}
+		return program;
+	}
+
+	/**
+	 * Discards the errors printed while a row is evaluated again. Nothing else is printed, as formulas cannot use '=' or 'd'.
+	 */
+	private static class DiscardOutput implements SrpnOutput {
+		public void printResult(int value) {
+		}
+
+		public void printError(String message) {
+		}
+	}
+}
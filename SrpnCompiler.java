@@ -0,0 +1,495 @@
+/**
+ * The SrpnCompiler class for SRPN, which scans a line of user input a character at a time and compiles it into a 'SrpnProgram'.
+ * Operands are read straight from the input, and their octal conversion and saturation is done once, here,
+ * rather than every time the line is executed.
+ * Literals are read as wide as the numeric mode being compiled for. See 'SrpnNumericMode' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProgram.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnCompiler {
+	// The largest amount of decimal digits which always fits in a long, and the value they are shifted up by
+	private static final int DECIMAL_CHUNK = 18;
+	private static final BigInteger DECIMAL_CHUNK_SCALE = BigInteger.TEN.pow(DECIMAL_CHUNK);
+	// The amount of octal digits which always fit in a long, even if some are non-ASCII digits over 7
+	private static final int OCTAL_CHUNK = 20;
+
+	/**
+	 * Method used to compile a line of user input into a new program.
+	 *
+	 * @param s
+	 * 		the line to be compiled
+	 *
+	 * @return the compiled program
+	 */
+	public static SrpnProgram compile(CharSequence s) {
+		SrpnProgram program = new SrpnProgram();
+		compile(s, 0, s.length(), program);
+		return program;
+	}
+
+	/**
+	 * Method used to compile a line of user input, adding its instructions to the end of the given program.
+	 *
+	 * @param s
+	 * 		the input holding the line
+	 * @param start
+	 * 		the index of the first character of the line
+	 * @param end
+	 * 		the index after the last character of the line
+	 * @param program
+	 * 		the program the instructions are added to
+	 */
+	public static void compile(CharSequence s, int start, int end, SrpnProgram program) {
+		compile(s, start, end, program, SrpnNumericMode.INT32);
+	}
+
+	/**
+	 * Method used to compile a line of user input for a numeric mode, adding its instructions to the end of the given program.
+	 *
+	 * @param s
+	 * 		the input holding the line
+	 * @param start
+	 * 		the index of the first character of the line
+	 * @param end
+	 * 		the index after the last character of the line
+	 * @param program
+	 * 		the program the instructions are added to
+	 * @param mode
+	 * 		the numeric mode, which decides how literals are read and pushed
+	 */
+	public static void compile(CharSequence s, int start, int end, SrpnProgram program, SrpnNumericMode mode) {
+		compile(s, start, end, program, mode, null);
+	}
+
+	/**
+	 * Method used to compile a line of user input for a numeric mode, timing it with the given profiler.
+	 *
+	 * @param s
+	 * 		the input holding the line
+	 * @param start
+	 * 		the index of the first character of the line
+	 * @param end
+	 * 		the index after the last character of the line
+	 * @param program
+	 * 		the program the instructions are added to
+	 * @param mode
+	 * 		the numeric mode, which decides how literals are read and pushed
+	 * @param profiler
+	 * 		the profiler the compiling is timed by, or null if it is not timed. See 'SrpnProfiler' class.
+	 */
+	public static void compile(CharSequence s, int start, int end, SrpnProgram program, SrpnNumericMode mode, SrpnProfiler profiler) {
+		SrpnProfiler.Recorder recorder = (profiler != null) ? profiler.recorder() : null;
+		long compileStart = (recorder != null) ? System.nanoTime() : 0;
+		int i = start;
+		// Loops through the user input until the end of the line, or until a comment is found
+		while(i < end){
+			i = compileToken(s, i, end, program, mode, recorder);
+		}
+		if(recorder != null){
+			recorder.compileNanos += System.nanoTime() - compileStart;
+		}
+	}
+
+	/**
+	 * Method used to compile the token starting at the given index of the user input.
+	 * Spaces separate tokens, and a '#' discards the rest of the input.
+	 *
+	 * @param s
+	 * 			the user input. See 'compile' method.
+	 * @param i
+	 * 			the index of the current character
+	 * @param end
+	 * 			the index after the last character of the line
+	 * @param program
+	 * 			the program the instructions are added to
+	 * @param mode
+	 * 			the numeric mode being compiled for
+	 * @param recorder
+	 * 			the recorder literal conversion is timed by, or null
+	 *
+	 * @return the index of the next character to be compiled, or the end of the line if a comment was found
+	 */
+	private static int compileToken(CharSequence s, int i, int end, SrpnProgram program, SrpnNumericMode mode,
+			SrpnProfiler.Recorder recorder){
+		char currentChar = s.charAt(i);
+		// The character after the end of the input is treated as a space
+		char nextChar = (i + 1 < end) ? s.charAt(i + 1) : ' ';
+
+		switch(SrpnCharacterClass.classify(currentChar)){
+		// If character is '#', disregard any input after it
+		case SrpnCharacterClass.COMMENT:
+			return end;
+
+		// If input is an operand, read the whole operand and continue after it
+		case SrpnCharacterClass.DIGIT:
+			return compileOperand(s, i, end, program, mode, recorder);
+
+		// A '-' directly followed by an operand is a negative number, otherwise it is an operator
+		case SrpnCharacterClass.OPERATOR:
+			if(currentChar == '-' && isOperand(nextChar)){
+				return compileOperand(s, i, end, program, mode, recorder);
+			}
+			program.add(opcode(currentChar));
+			break;
+
+		case SrpnCharacterClass.COMMAND:
+			program.add(opcode(currentChar));
+			break;
+
+		// Spaces only separate tokens
+		case SrpnCharacterClass.WHITESPACE:
+			break;
+
+		// Otherwise input is an unknown character
+		default:
+			program.add(SrpnProgram.UNKNOWN, currentChar);
+			break;
+		}
+		return i + 1;
+	}
+
+	/**
+	 * Method which finds the instruction for an operator or command.
+	 *
+	 * @param nonNumericInput
+	 * 		the operator or command character
+	 *
+	 * @return the instruction. See 'SrpnProgram' class.
+	 */
+	static int opcode(char nonNumericInput){
+		switch(nonNumericInput){
+		case '+':
+			return SrpnProgram.ADD;
+		case '-':
+			return SrpnProgram.SUB;
+		case '*':
+			return SrpnProgram.MUL;
+		case '/':
+			return SrpnProgram.DIV;
+		case '%':
+			return SrpnProgram.MOD;
+		case '^':
+			return SrpnProgram.POW;
+		case '=':
+			return SrpnProgram.PRINT_TOP;
+		case 'd':
+			return SrpnProgram.DUMP;
+		case 'r':
+			return SrpnProgram.RAND;
+		default:
+			return SrpnProgram.UNKNOWN;
+		}
+	}
+
+	/**
+	 * Method which reads an operand from the user input, checks if it is an octal, and compiles a push of its saturated value.
+	 * An operand starting with '0' (or '-0') and longer than one character is treated as an octal.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first character of the operand, which is either a digit or a '-'
+	 * @param end
+	 * 		the index after the last character of the line
+	 * @param program
+	 * 		the program the push is added to
+	 * @param mode
+	 * 		the numeric mode, which decides how wide the pushed value is
+	 * @param recorder
+	 * 		the recorder literal conversion is timed by, or null
+	 *
+	 * @return the index of the first character after the operand
+	 */
+	private static int compileOperand(CharSequence s, int start, int end, SrpnProgram program, SrpnNumericMode mode,
+			SrpnProfiler.Recorder recorder){
+		boolean isNegative = s.charAt(start) == '-';
+		int firstDigit = isNegative ? start + 1 : start;
+		int i = firstDigit;
+		// Finds the end of the operand
+		while(i < end && isOperand(s.charAt(i))){
+			i++;
+		}
+
+		// Checks if the operand is octal
+		boolean isOctal = s.charAt(firstDigit) == '0' && (isNegative || i - firstDigit > 1);
+		long literalStart = (recorder != null) ? System.nanoTime() : 0;
+		switch(mode){
+		case INT64:
+			program.addLong(isOctal ? octalLongValue(s, firstDigit, i, isNegative) : decimalLongValue(s, firstDigit, i, isNegative));
+			break;
+		case BIG_INTEGER:
+			program.addBig(isOctal ? octalBigValue(s, firstDigit, i, isNegative) : decimalBigValue(s, firstDigit, i, isNegative));
+			break;
+		default:
+			int value = isOctal ? octalValue(s, firstDigit, i, isNegative) : decimalValue(s, firstDigit, i, isNegative);
+			program.add(SrpnProgram.PUSH, value);
+			// Only a literal at the end of the integer range may have been saturated, which its exact value shows
+			if((value == 2147483647 || value == -2147483648)
+					&& value != (isOctal ? octalLongValue(s, firstDigit, i, isNegative) : decimalLongValue(s, firstDigit, i, isNegative))){
+				program.saturatedLiterals++;
+			}
+			break;
+		}
+		if(recorder != null){
+			recorder.literalNanos += System.nanoTime() - literalStart;
+		}
+		return i;
+	}
+
+	/**
+	 * Method which calculates the value of a decimal operand, saturated if it is too large or too small for an integer.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the saturated value of the operand
+	 */
+	static int decimalValue(CharSequence s, int start, int end, boolean isNegative){
+		// If operand (including any minus sign) is over 10 characters long, then it is certainly over/under saturated
+		int operandLength = end - start + (isNegative ? 1 : 0);
+		if(operandLength > 10){
+			return isNegative ? -2147483648 : 2147483647;
+		}
+
+		// If not, it is short enough to be accumulated in a long in order to check
+		long decimalValue = 0;
+		for(int i = start; i < end; i++){
+			decimalValue = decimalValue * 10 + SrpnCharacterClass.digitValue(s.charAt(i));
+		}
+		if(isNegative){
+			decimalValue = -decimalValue;
+		}
+		return elementSaturation(decimalValue);
+	}
+
+	/**
+	 * Method which calculates the decimal value of an operand which is an octal.
+	 * SRPN disregards any input after an '8' or a '9' is encountered, and uses the preceeding numbers.
+	 * Leading zeros are ignored, unless the octal is negative.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand, which is always '0'
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the saturated decimal value of the operand
+	 */
+	static int octalValue(CharSequence s, int start, int end, boolean isNegative){
+		long decimalValue = 0;
+		int digitCount = 0;
+		int mostSignificantDigit = 0;
+		int i = start;
+		// Leading zeros are skipped, unless the octal is negative
+		if(!isNegative){
+			while(i < end && s.charAt(i) == '0'){
+				i++;
+			}
+		}
+		for(; i < end; i++){
+			char currentCharacter = s.charAt(i);
+			if(currentCharacter == '8' || currentCharacter == '9'){
+				break;
+			}
+			int digit = SrpnCharacterClass.digitValue(currentCharacter);
+			if(digitCount == 0){
+				mostSignificantDigit = digit;
+			}
+			/* Each digit shifts the value up by three bits. Once the maximum integer value is reached it is saturated,
+			 * so only the digits need to be counted. Non-ASCII digits can be over 7, so they are added rather than or'd.
+			 */
+			if(decimalValue < 2147483647){
+				decimalValue = Math.min((decimalValue << 3) + digit, 2147483647);
+			}
+			digitCount++;
+		}
+
+		/* Octals were previously summed with 'Math.pow(8, exponent)' from the least significant digit,
+		 * where a column weight of 8^342 or more is infinite. The most significant digit therefore
+		 * decides the value of such long octals: 0 * infinity gives 0, anything else saturates.
+		 */
+		if(digitCount > 342){
+			decimalValue = (mostSignificantDigit == 0) ? 0 : 2147483647;
+		}
+
+		// Negates the decimal value if a minus sign was found
+		if(isNegative){
+			decimalValue = -decimalValue;
+		}
+
+		// Negative values of ten digits or more are treated as under saturated, as with decimal operands
+		if(decimalValue <= -1000000000){
+			return -2147483648;
+		}
+		return (int) decimalValue;
+	}
+
+	/**
+	 * Method which calculates the value of a decimal operand in 'int64' mode, saturated if it is outside of the long range.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the saturated value of the operand
+	 */
+	static long decimalLongValue(CharSequence s, int start, int end, boolean isNegative){
+		long decimalValue = 0;
+		for(int i = start; i < end; i++){
+			int digit = SrpnCharacterClass.digitValue(s.charAt(i));
+			// The minimum long value cannot be held as a positive long, but is the saturated value anyway
+			if(decimalValue > (Long.MAX_VALUE - digit) / 10){
+				return isNegative ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			decimalValue = decimalValue * 10 + digit;
+		}
+		return isNegative ? -decimalValue : decimalValue;
+	}
+
+	/**
+	 * Method which calculates the value of an octal operand in 'int64' mode, saturated if it is outside of the long range.
+	 * As in 'int32' mode, any input after an '8' or a '9' is disregarded.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand, which is always '0'
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the saturated value of the operand
+	 */
+	static long octalLongValue(CharSequence s, int start, int end, boolean isNegative){
+		long decimalValue = 0;
+		for(int i = start; i < end; i++){
+			char currentCharacter = s.charAt(i);
+			if(currentCharacter == '8' || currentCharacter == '9'){
+				break;
+			}
+			int digit = SrpnCharacterClass.digitValue(currentCharacter);
+			if(decimalValue > (Long.MAX_VALUE - digit) >> 3){
+				return isNegative ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			decimalValue = (decimalValue << 3) + digit;
+		}
+		return isNegative ? -decimalValue : decimalValue;
+	}
+
+	/**
+	 * Method which calculates the exact value of a decimal operand in 'bigint' mode.
+	 * Digits are gathered into longs, so the big integer is only multiplied once for every 18 digits.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the value of the operand
+	 */
+	static BigInteger decimalBigValue(CharSequence s, int start, int end, boolean isNegative){
+		BigInteger decimalValue = BigInteger.ZERO;
+		int i = start;
+		while(i < end){
+			int chunkEnd = Math.min(i + DECIMAL_CHUNK, end);
+			long chunk = 0;
+			for(int j = i; j < chunkEnd; j++){
+				chunk = chunk * 10 + SrpnCharacterClass.digitValue(s.charAt(j));
+			}
+			BigInteger scale = (chunkEnd - i == DECIMAL_CHUNK) ? DECIMAL_CHUNK_SCALE : BigInteger.TEN.pow(chunkEnd - i);
+			decimalValue = decimalValue.multiply(scale).add(BigInteger.valueOf(chunk));
+			i = chunkEnd;
+		}
+		return isNegative ? decimalValue.negate() : decimalValue;
+	}
+
+	/**
+	 * Method which calculates the exact value of an octal operand in 'bigint' mode.
+	 * As in 'int32' mode, any input after an '8' or a '9' is disregarded.
+	 *
+	 * @param s
+	 * 		the user input. See 'compileToken' method.
+	 * @param start
+	 * 		the index of the first digit of the operand, which is always '0'
+	 * @param end
+	 * 		the index after the last digit of the operand
+	 * @param isNegative
+	 * 		whether or not the operand was preceeded by a '-'
+	 *
+	 * @return the value of the operand
+	 */
+	static BigInteger octalBigValue(CharSequence s, int start, int end, boolean isNegative){
+		BigInteger decimalValue = BigInteger.ZERO;
+		long chunk = 0;
+		int chunkDigits = 0;
+		for(int i = start; i < end; i++){
+			char currentCharacter = s.charAt(i);
+			if(currentCharacter == '8' || currentCharacter == '9'){
+				break;
+			}
+			chunk = (chunk << 3) + SrpnCharacterClass.digitValue(currentCharacter);
+			if(++chunkDigits == OCTAL_CHUNK){
+				decimalValue = decimalValue.shiftLeft(3 * OCTAL_CHUNK).add(BigInteger.valueOf(chunk));
+				chunk = 0;
+				chunkDigits = 0;
+			}
+		}
+		decimalValue = decimalValue.shiftLeft(3 * chunkDigits).add(BigInteger.valueOf(chunk));
+		return isNegative ? decimalValue.negate() : decimalValue;
+	}
+
+	/**
+	 * Method which saturates an operand which is over or under saturated.
+	 *
+	 * @param element
+	 * 		the value of the operand
+	 *
+	 * @return the operand, or the maximum or minimum integer value if it was over or under saturated
+	 */
+	private static int elementSaturation(long element){
+		if(element > 2147483647){
+			return 2147483647;
+		}
+		else if(element < -2147483648){
+			return -2147483648;
+		}
+		return (int) element;
+	}
+
+	/**
+	 * Method which checks if a given character is an operand or not.
+	 *
+	 * @param currentChar
+	 * 		the character to be tested
+	 *
+	 * @return whether or not the given character is an operand.
+	 */
+	static boolean isOperand(char currentChar){
+		return SrpnCharacterClass.classify(currentChar) == SrpnCharacterClass.DIGIT;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * The SrpnEngine class, which lets SRPN be embedded in another program. Programs are evaluated with the same
+ * logic as 'SrpnProcessInput', but results, errors and the stack are returned as a 'SrpnResult' rather than printed.
+ *
+ * An engine keeps its stack and 'r' position between evaluations, as an interactive session does, until it is reset.
+ * Engines are not thread safe, but are cheap to reset, so can be pooled and reused rather than created for every program.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnResult.java
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.List;
+
+public class SrpnEngine {
+
+	/**
+	 * Collects everything the calculator prints during an evaluation, both by channel and in the order it was printed.
+	 */
+	private static class CollectingOutput implements SrpnOutput {
+		int[] results = new int[16];
+		int resultCount = 0;
+		List<String> errors = new ArrayList<String>();
+		List<SrpnEvent> events = new ArrayList<SrpnEvent>();
+
+		public void printResult(int value) {
+			if(resultCount == results.length) {
+				results = Arrays.copyOf(results, resultCount * 2);
+			}
+			results[resultCount++] = value;
+			events.add(SrpnEvent.result(value));
+		}
+
+		public void printError(String message) {
+			errors.add(message);
+			events.add(SrpnEvent.error(message));
+		}
+	}
+
+	private final CollectingOutput output = new CollectingOutput();
+	private final SrpnProcessInput srpn = new SrpnProcessInput(output);
+
+	/**
+	 * Method which evaluates a program, which may be made up of several lines.
+	 * Lines are split on '\n', '\r' or "\r\n", as they are when read from the command-line.
+	 *
+	 * @param program
+	 * 		the program to be evaluated
+	 *
+	 * If '=' is entered while the stack is empty, which stops the calculator in interactive mode, the rest of the
+	 * program is not evaluated. The result then ends with the exception as a terminating error, and the engine is reset.
+	 *
+	 * @param program
+	 * 		the program to be evaluated
+	 *
+	 * @return the values printed by the program, the errors it caused, and the contents of the stack afterwards
+	 */
+	public SrpnResult evaluate(CharSequence program) {
+		output.resultCount = 0;
+		output.errors = new ArrayList<String>();
+		output.events = new ArrayList<SrpnEvent>();
+
+		String terminatingError = null;
+		try {
+			int length = program.length();
+			int lineStart = 0;
+			for(int i = 0; i < length; i++) {
+				char currentChar = program.charAt(i);
+				if(currentChar == '\n' || currentChar == '\r') {
+					srpn.processCommand(program, lineStart, i);
+					// A "\r\n" is a single line break
+					if(currentChar == '\r' && i + 1 < length && program.charAt(i + 1) == '\n') {
+						i++;
+					}
+					lineStart = i + 1;
+				}
+			}
+			srpn.processCommand(program, lineStart, length);
+		} catch(EmptyStackException e) {
+			terminatingError = e.toString();
+			output.printError(terminatingError);
+		}
+
+		SrpnResult result = new SrpnResult(Arrays.copyOf(output.results, output.resultCount), srpn.srpnStack.toArray(),
+				output.errors, output.events, terminatingError);
+		if(terminatingError != null) {
+			// The calculator would have stopped, so the next evaluation starts as a new one
+			srpn.reset();
+		}
+		return result;
+	}
+
+	/**
+	 * Method which returns the engine to the state it was in when created, with an empty stack
+	 * and the 'r' command back at its first value.
+	 */
+	public void reset() {
+		srpn.reset();
+	}
+}
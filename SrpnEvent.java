@@ -0,0 +1,118 @@
+/**
+ * The SrpnEvent class for SRPN, which is one thing the calculator printed, as published by 'SrpnEventPublisher':
+ * either a result, i.e. a value printed by the '=' or 'd' commands, or an error message, e.g. "Stack underflow."
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnEventPublisher.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnEvent {
+
+	/**
+	 * The kinds of event, matching the two channels of 'SrpnOutput'.
+	 */
+	public enum Kind {
+		RESULT,
+		ERROR
+	}
+
+	private final Kind kind;
+	// The value of a result, held as a long unless it is too large for one in 'bigint' mode
+	private final long value;
+	private final BigInteger bigValue;
+	private final String message;
+
+	private SrpnEvent(Kind kind, long value, BigInteger bigValue, String message) {
+		this.kind = kind;
+		this.value = value;
+		this.bigValue = bigValue;
+		this.message = message;
+	}
+
+	/**
+	 * Method which creates a result event, for a value which fits in a long.
+	 */
+	static SrpnEvent result(long value) {
+		return new SrpnEvent(Kind.RESULT, value, null, null);
+	}
+
+	/**
+	 * Method which creates a result event, for a value in 'bigint' mode.
+	 */
+	static SrpnEvent result(BigInteger value) {
+		if(value.bitLength() < Long.SIZE) {
+			return result(value.longValue());
+		}
+		return new SrpnEvent(Kind.RESULT, 0, value, null);
+	}
+
+	/**
+	 * Method which creates an error event.
+	 */
+	static SrpnEvent error(String message) {
+		return new SrpnEvent(Kind.ERROR, 0, null, message);
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return whether or not the event is an error message
+	 */
+	public boolean isError() {
+		return kind == Kind.ERROR;
+	}
+
+	/**
+	 * @return the value of a result, in any numeric mode
+	 * @throws IllegalStateException
+	 * 		if the event is an error message
+	 */
+	public BigInteger getValue() {
+		checkResult();
+		return (bigValue != null) ? bigValue : BigInteger.valueOf(value);
+	}
+
+	/**
+	 * @return the value of a result, which always fits in a long in the 'int32' and 'int64' modes
+	 * @throws IllegalStateException
+	 * 		if the event is an error message
+	 * @throws ArithmeticException
+	 * 		if the value is too large for a long
+	 */
+	public long longValue() {
+		checkResult();
+		if(bigValue != null) {
+			throw new ArithmeticException("Result is too large for a long.");
+		}
+		return value;
+	}
+
+	/**
+	 * @return the error message, or null if the event is a result
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the event as the calculator would have printed it
+	 */
+	public String toString() {
+		if(kind == Kind.ERROR) {
+			return message;
+		}
+		return (bigValue != null) ? bigValue.toString() : Long.toString(value);
+	}
+
+	private void checkResult() {
+		if(kind != Kind.RESULT) {
+			throw new IllegalStateException("Event is an error, not a result.");
+		}
+	}
+}
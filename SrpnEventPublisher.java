@@ -0,0 +1,293 @@
+/**
+ * The SrpnEventPublisher class, which lets SRPN be used in an asynchronous pipeline with 'java.util.concurrent.Flow'.
+ * It subscribes to a publisher of lines of input, processes them with the same calculator as 'SrpnProcessInput'
+ * (or the calculator of another numeric mode), and publishes what the calculator prints as 'SrpnEvent's,
+ * results and error messages in the order they were printed.
+ *
+ * The subscriber's demand throttles the input: a line is only processed once every event from the lines before it
+ * has been requested, and at most 'prefetch' lines are requested from the publisher ahead of being processed.
+ * Only the events of a single line are ever held, however slowly the subscriber requests them.
+ *
+ * Each item of input is one line, without its line break. The calculator keeps its stack and 'r' position from
+ * one line to the next, as an interactive session does. Once the input completes and every event has been delivered,
+ * the subscriber is completed. If the input fails, or '=' is entered while the stack is empty, the subscriber
+ * is sent the error once the events before it have been delivered, as the calculator would stop at that point.
+ * A publisher serves a single subscriber.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnEvent.java
+ */
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SrpnEventPublisher implements Flow.Processor<CharSequence, SrpnEvent> {
+	// The amount of lines requested ahead of being processed by default
+	static final int DEFAULT_PREFETCH = 32;
+
+	final SrpnCalculator srpn;
+	private final int prefetch;
+
+	// The events of the line being delivered, which are only used by the thread draining them
+	private final ArrayDeque<SrpnEvent> events = new ArrayDeque<SrpnEvent>();
+	// Lines received from the publisher, which have not been processed yet
+	private final Queue<CharSequence> lines = new ConcurrentLinkedQueue<CharSequence>();
+	// The amount of lines requested from the publisher which have not been processed yet, used while draining
+	private int pendingLines = 0;
+
+	private volatile Flow.Subscription upstream = null;
+	private Flow.Subscriber<? super SrpnEvent> subscriber = null;
+	// Set once the subscriber has been given its subscription, before which nothing is delivered
+	private volatile boolean subscribed = false;
+	// The amount of events the subscriber has requested which have not been delivered yet
+	private final AtomicLong demand = new AtomicLong();
+
+	// Whether the input has ended, and the error it ended with, if any
+	private volatile boolean inputDone = false;
+	private volatile Throwable inputError = null;
+	// The exception which stopped the calculator, which is only used while draining
+	private RuntimeException failure = null;
+	// An error sent to the subscriber straight away, without waiting for the events before it
+	private volatile Throwable immediateError = null;
+	private volatile boolean cancelled = false;
+	private boolean terminated = false;
+
+	// The amount of times 'drain' has been asked to run, so only one thread runs it at once
+	private final AtomicInteger drainRequests = new AtomicInteger();
+
+	/**
+	 * Constructor which publishes the events of the 'int32' calculator.
+	 */
+	public SrpnEventPublisher() {
+		this(SrpnNumericMode.INT32, DEFAULT_PREFETCH);
+	}
+
+	/**
+	 * Constructor which takes the numeric mode of the calculator, and how far ahead of processing lines are requested.
+	 *
+	 * @param mode
+	 * 		the numeric mode of the calculator
+	 * @param prefetch
+	 * 		the most lines requested from the publisher which have not been processed yet
+	 */
+	public SrpnEventPublisher(SrpnNumericMode mode, int prefetch) {
+		if(prefetch < 1) {
+			throw new IllegalArgumentException("Prefetch must be at least 1.");
+		}
+		this.prefetch = prefetch;
+		srpn = mode.createCalculator(new EventOutput());
+	}
+
+	public void subscribe(Flow.Subscriber<? super SrpnEvent> subscriber) {
+		boolean first;
+		synchronized(this) {
+			first = this.subscriber == null;
+			if(first) {
+				this.subscriber = subscriber;
+			}
+		}
+		if(first) {
+			subscriber.onSubscribe(new EventSubscription());
+			subscribed = true;
+			drain();
+			return;
+		}
+		subscriber.onSubscribe(new Flow.Subscription() {
+			public void request(long n) {
+			}
+
+			public void cancel() {
+			}
+		});
+		subscriber.onError(new IllegalStateException("Only one subscriber is supported."));
+	}
+
+	public void onSubscribe(Flow.Subscription subscription) {
+		if(upstream != null) {
+			subscription.cancel();
+			return;
+		}
+		upstream = subscription;
+		if(cancelled) {
+			subscription.cancel();
+			return;
+		}
+		drain();
+	}
+
+	public void onNext(CharSequence line) {
+		if(cancelled) {
+			return;
+		}
+		lines.add(line);
+		drain();
+	}
+
+	public void onError(Throwable error) {
+		inputError = error;
+		inputDone = true;
+		drain();
+	}
+
+	public void onComplete() {
+		inputDone = true;
+		drain();
+	}
+
+	/**
+	 * Method which delivers as many events as the subscriber has requested, processing lines as more are needed
+	 * and requesting lines from the publisher to keep 'prefetch' of them on the way.
+	 * Whichever thread asks first runs it, and runs it again for the others, so it is never run by two threads at once.
+	 */
+	private void drain() {
+		if(drainRequests.getAndIncrement() != 0) {
+			return;
+		}
+		int requests = 1;
+		do {
+			if(subscribed) {
+				drainEvents();
+			}
+			requests = drainRequests.addAndGet(-requests);
+		} while(requests != 0);
+	}
+
+	/**
+	 * Method which runs until nothing more can be done without more demand or input.
+	 */
+	private void drainEvents() {
+		while(!terminated) {
+			if(cancelled) {
+				events.clear();
+				lines.clear();
+				terminated = true;
+				return;
+			}
+			if(immediateError != null) {
+				cancelInput();
+				terminate(immediateError);
+				return;
+			}
+			if(!events.isEmpty()) {
+				long requested = demand.get();
+				if(requested == 0) {
+					return;
+				}
+				subscriber.onNext(events.poll());
+				if(requested != Long.MAX_VALUE) {
+					demand.decrementAndGet();
+				}
+				continue;
+			}
+			if(failure != null) {
+				terminate(failure);
+				return;
+			}
+			// Lines are only processed once their events can be delivered
+			CharSequence line = (demand.get() > 0) ? lines.poll() : null;
+			if(line != null) {
+				pendingLines--;
+				try {
+					srpn.processCommand(line);
+				} catch(RuntimeException e) {
+					// The calculator stops, once the events it printed before the error are delivered
+					failure = e;
+					cancelInput();
+				}
+				continue;
+			}
+			if(inputDone && lines.isEmpty()) {
+				terminate(inputError);
+				return;
+			}
+			Flow.Subscription subscription = upstream;
+			if(subscription != null && !inputDone && pendingLines <= prefetch / 2) {
+				int request = prefetch - pendingLines;
+				pendingLines = prefetch;
+				subscription.request(request);
+				// Lines may have been received while requesting
+				continue;
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Method which ends the subscription, completing the subscriber or sending it an error.
+	 */
+	private void terminate(Throwable error) {
+		terminated = true;
+		events.clear();
+		lines.clear();
+		if(error == null) {
+			subscriber.onComplete();
+		}
+		else {
+			subscriber.onError(error);
+		}
+	}
+
+	/**
+	 * Method which stops the publisher sending any more lines, once they are no longer needed.
+	 */
+	private void cancelInput() {
+		Flow.Subscription subscription = upstream;
+		if(subscription != null && !inputDone) {
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * The subscriber's subscription to the events.
+	 */
+	private class EventSubscription implements Flow.Subscription {
+
+		public void request(long n) {
+			if(n <= 0) {
+				immediateError = new IllegalArgumentException("Must request a positive amount of events, not " + n + ".");
+			}
+			else {
+				demand.getAndUpdate(requested -> (requested + n < 0) ? Long.MAX_VALUE : requested + n);
+			}
+			drain();
+		}
+
+		public void cancel() {
+			cancelled = true;
+			Flow.Subscription subscription = upstream;
+			if(subscription != null) {
+				subscription.cancel();
+			}
+			drain();
+		}
+	}
+
+	/**
+	 * An output which adds everything the calculator prints to the events being delivered.
+	 */
+	private class EventOutput implements SrpnOutput {
+
+		public void printResult(int value) {
+			events.add(SrpnEvent.result(value));
+		}
+
+		public void printResult(long value) {
+			events.add(SrpnEvent.result(value));
+		}
+
+		public void printResult(BigInteger value) {
+			events.add(SrpnEvent.result(value));
+		}
+
+		public void printError(String message) {
+			events.add(SrpnEvent.error(message));
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * The default random source for SRPN, which gives the same values as the C library's 'rand()' with its default seed,
+ * i.e. 1804289383, 846930886, 1681692777 and so on, for as long as the 'r' command is used.
+ *
+ * The values come from an additive feedback generator over 31 integers, as in glibc, where each new integer is the sum
+ * of the ones 3 and 31 before it. The state after seeding is only worked out once, so creating a source is a single copy.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnRandomSource.java
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class SrpnGlibcRandom implements SrpnRandomSource {
+	// The amount of integers in the generator's state
+	private static final int DEGREE = 31;
+	// How many integers before the newest the other one summed is
+	private static final int SEPARATION = 3;
+
+	// The amount of bytes the source takes in a snapshot
+	static final int STATE_SIZE = (2 * DEGREE + 2) * Integer.BYTES;
+
+	// The state for the default seed, ready to give its first value
+	private static final int[] DEFAULT_STATE = seededState(1);
+
+	private final int[] initialState;
+	private final int[] state;
+	// The positions of the two integers summed for the next value
+	private int front = SEPARATION;
+	private int rear = 0;
+
+	/**
+	 * Constructor which gives the same values as 'rand()' with no call to 'srand()'.
+	 */
+	public SrpnGlibcRandom() {
+		initialState = DEFAULT_STATE;
+		state = DEFAULT_STATE.clone();
+	}
+
+	/**
+	 * Constructor which gives the same values as 'rand()' after 'srand(seed)'.
+	 *
+	 * @param seed
+	 * 			the seed, where 0 is treated as 1 as it is by glibc
+	 */
+	public SrpnGlibcRandom(int seed) {
+		initialState = (seed == 1 || seed == 0) ? DEFAULT_STATE : seededState(seed);
+		state = initialState.clone();
+	}
+
+	public int nextInt() {
+		int value = state[front] += state[rear];
+		if(++front == DEGREE) {
+			front = 0;
+		}
+		if(++rear == DEGREE) {
+			rear = 0;
+		}
+		// The lowest bit has the shortest period, so is dropped
+		return value >>> 1;
+	}
+
+	public void reset() {
+		System.arraycopy(initialState, 0, state, 0, DEGREE);
+		front = SEPARATION;
+		rear = 0;
+	}
+
+	public SrpnGlibcRandom copy() {
+		SrpnGlibcRandom copy = new SrpnGlibcRandom(initialState, state.clone());
+		copy.front = front;
+		copy.rear = rear;
+		return copy;
+	}
+
+	/**
+	 * Method used to write the source's seeded state and current state to a snapshot.
+	 *
+	 * @param buffer
+	 * 			the buffer the source is written to, which must have 'STATE_SIZE' bytes left
+	 */
+	void writeState(ByteBuffer buffer) {
+		for(int word : initialState) {
+			buffer.putInt(word);
+		}
+		for(int word : state) {
+			buffer.putInt(word);
+		}
+		buffer.putInt(front);
+		buffer.putInt(rear);
+	}
+
+	/**
+	 * Method used to read a source written by 'writeState'.
+	 *
+	 * @param buffer
+	 * 			the buffer the source is read from
+	 *
+	 * @return the source, at the same value it was written at
+	 */
+	static SrpnGlibcRandom readState(ByteBuffer buffer) {
+		int[] initialState = new int[DEGREE];
+		int[] state = new int[DEGREE];
+		for(int i = 0; i < DEGREE; i++) {
+			initialState[i] = buffer.getInt();
+		}
+		for(int i = 0; i < DEGREE; i++) {
+			state[i] = buffer.getInt();
+		}
+		SrpnGlibcRandom random = new SrpnGlibcRandom(Arrays.equals(initialState, DEFAULT_STATE) ? DEFAULT_STATE : initialState, state);
+		random.front = buffer.getInt();
+		random.rear = buffer.getInt();
+		if(random.front < 0 || random.front >= DEGREE || random.rear < 0 || random.rear >= DEGREE) {
+			throw new IllegalArgumentException("Random source position out of range.");
+		}
+		return random;
+	}
+
+	/**
+	 * Method which seeds the state as 'srandom' does, then discards the first 310 values, so the state is ready
+	 * to give the first value of 'rand()'.
+	 *
+	 * @param seed
+	 * 			the seed
+	 *
+	 * @return the state
+	 */
+	private static int[] seededState(int seed) {
+		int[] state = new int[DEGREE];
+		int word = (seed == 0) ? 1 : seed;
+		state[0] = word;
+		for(int i = 1; i < DEGREE; i++) {
+			// 16807 * word % 2147483647, without overflowing an integer
+			int high = word / 127773;
+			int low = word % 127773;
+			word = 16807 * low - 2836 * high;
+			if(word < 0) {
+				word += 2147483647;
+			}
+			state[i] = word;
+		}
+		SrpnGlibcRandom random = new SrpnGlibcRandom(state);
+		for(int i = 0; i < DEGREE * 10; i++) {
+			random.nextInt();
+		}
+		return random.state;
+	}
+
+	/**
+	 * Constructor used while seeding, which works on the state it is given.
+	 */
+	private SrpnGlibcRandom(int[] state) {
+		this(state, state);
+	}
+
+	/**
+	 * Constructor used by 'copy' and 'readState', which takes the state to reset to and the current state.
+	 */
+	private SrpnGlibcRandom(int[] initialState, int[] state) {
+		this.initialState = initialState;
+		this.state = state;
+	}
+}
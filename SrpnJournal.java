@@ -0,0 +1,624 @@
+/**
+ * The SrpnJournal class for SRPN, which is a write-ahead journal of the input of named server sessions.
+ * See 'SrpnServer' class. Input is appended to the journal before it is processed, and its responses are not
+ * written to the client until it has been forced to disk, so every response a client has seen survives a crash.
+ * Replaying the journal through fresh calculators makes each session again exactly as it was.
+ *
+ * Appends are made by any thread, and are committed by a thread of the journal's own: each commit gathers as many
+ * appends as are waiting, up to the batch size, into one write followed by one force, so sessions share the cost
+ * of forcing the disk.
+ *
+ * The journal starts with the magic number "SRPJ", the format version as a short and the numeric mode as a byte.
+ * Each record is then its length as an int, its type as a byte, the length of its session's name as a short,
+ * the name in UTF-8, its contents, and a CRC-32 of everything after the length as an int. All numbers are big-endian.
+ * An input record holds the characters in UTF-8, and a snapshot record holds a snapshot of the session's calculator,
+ * which replaces the session. See 'SrpnSnapshot' class. A record left unfinished by a crash is cut off when the journal is opened.
+ *
+ * The journal is compacted when it is opened and whenever it grows past the compaction size, by replaying it and
+ * writing a snapshot of each session after its last complete line, followed by the input it has had since.
+ * While the journal is open this is done by a thread of its own, reading the journal a record at a time, while appends
+ * carry on being committed. Those are copied to the end of the compacted journal before it replaces the journal.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnServer.java
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+public class SrpnJournal {
+	// "SRPJ" in ASCII, which every journal starts with
+	private static final int MAGIC = 0x5352504A;
+	// The version of the format written, which is the newest that can be read
+	static final short VERSION = 1;
+	private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 1;
+
+	// The types of record
+	private static final byte INPUT = 0;
+	private static final byte SNAPSHOT = 1;
+
+	static final int DEFAULT_MAX_BATCH = 256;
+	static final long DEFAULT_COMPACT_SIZE = 64L << 20;
+	// The amount of the journal read at once while replaying it
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	// Put on the queue by 'close', after every append which has been made
+	private static final Record CLOSE = new Record(null, null);
+
+	private final Path file;
+	private final SrpnNumericMode mode;
+	private final int bufferSize;
+	// The sessions made again from the journal when it was opened, by their names
+	private final Map<String, SrpnSession> recovered = new LinkedHashMap<String, SrpnSession>();
+
+	// Used only by the committing thread once the journal is open
+	private FileChannel channel;
+	private long size;
+	// The size when the journal was last compacted, which it must double before it is compacted again
+	private long compactedSize;
+	// The thread compacting the journal, or null if it is not being compacted, and how much of the journal it compacts
+	private Thread compactor = null;
+	private long compactionEnd;
+	private volatile boolean compactionDone;
+	private volatile IOException compactionFailure;
+
+	private final BlockingQueue<Record> queue = new LinkedBlockingQueue<Record>();
+	private final Thread committer;
+	private volatile int maxBatch = DEFAULT_MAX_BATCH;
+	private volatile long compactSize = DEFAULT_COMPACT_SIZE;
+	// Why the journal stopped committing, or null if it has not
+	private volatile IOException failure = null;
+
+	/**
+	 * Constructor which opens a journal, creating it if it does not exist, and makes again every session in it.
+	 *
+	 * @param file
+	 * 			the journal file
+	 * @param mode
+	 * 			the numeric mode of every session in the journal
+	 * @param bufferSize
+	 * 			the amount of input characters each session holds at once. See 'SrpnSession' class.
+	 * @param sessions
+	 * 			creates a session with the given name, which the journal is replayed into
+	 * @throws IOException
+	 * 			if the journal cannot be read or written, or is not a journal for the same numeric mode
+	 */
+	public SrpnJournal(Path file, SrpnNumericMode mode, int bufferSize, Function<String, SrpnSession> sessions) throws IOException {
+		this.file = file;
+		this.mode = mode;
+		this.bufferSize = bufferSize;
+		Map<String, Replay> replays = new LinkedHashMap<String, Replay>();
+		if(Files.exists(file)) {
+			try(FileChannel journal = FileChannel.open(file, StandardOpenOption.READ)) {
+				replays = replay(journal, journal.size(), sessions);
+			}
+		}
+		for(Replay replay : replays.values()) {
+			recovered.put(replay.session.name, replay.session);
+		}
+		writeCompacted(temporaryFile(), replays);
+		replaceJournal(temporaryFile(), 0);
+
+		committer = new Thread(this::commit, "srpn-journal");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 * Method used to find the sessions made again from the journal when it was opened.
+	 *
+	 * @return the sessions, by their names
+	 */
+	public Map<String, SrpnSession> getRecoveredSessions() {
+		return recovered;
+	}
+
+	/**
+	 * Method used to set the most appends committed with one write, where 1 forces the disk for every append.
+	 */
+	public void setMaxBatch(int maxBatch) {
+		this.maxBatch = Math.max(1, maxBatch);
+	}
+
+	/**
+	 * Method used to set the size in bytes past which the journal is compacted.
+	 */
+	public void setCompactSize(long compactSize) {
+		this.compactSize = compactSize;
+	}
+
+	/**
+	 * Method which appends a snapshot of a session, which replaces the session when the journal is replayed,
+	 * e.g. when the session is created.
+	 *
+	 * @param name
+	 * 			the session's name
+	 * @param snapshot
+	 * 			the snapshot of the session's calculator
+	 * @param onCommit
+	 * 			called on the committing thread once the snapshot is on disk, with null, or with the exception
+	 * 			the journal failed with if it never will be, or null for no callback
+	 * @throws UncheckedIOException
+	 * 			if the journal has already failed, as nothing more would be committed
+	 */
+	public void appendSnapshot(String name, SrpnSnapshot snapshot, Consumer<IOException> onCommit) {
+		append(encode(SNAPSHOT, name, snapshot.toBytes()), onCommit);
+	}
+
+	/**
+	 * Method which appends input a session has been given, which has not been processed yet.
+	 *
+	 * @param name
+	 * 			the session's name
+	 * @param chars
+	 * 			the input, which is left as it is so it can then be processed
+	 * @param onCommit
+	 * 			called on the committing thread once the input is on disk, with null, or with the exception
+	 * 			the journal failed with if it never will be, or null for no callback
+	 * @throws UncheckedIOException
+	 * 			if the journal has already failed, as nothing more would be committed
+	 */
+	public void appendInput(String name, CharBuffer chars, Consumer<IOException> onCommit) {
+		append(encode(INPUT, name, StandardCharsets.UTF_8.encode(chars.duplicate())), onCommit);
+	}
+
+	/**
+	 * Method which commits every append which has been made, and closes the journal.
+	 */
+	public void close() throws IOException {
+		queue.add(CLOSE);
+		try {
+			committer.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if(compactor != null) {
+			try {
+				compactor.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			Files.deleteIfExists(temporaryFile());
+		}
+		channel.close();
+		if(failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Method which puts a record on the queue to be committed.
+	 *
+	 * @throws UncheckedIOException
+	 * 			if the journal can no longer be written, as nothing more would be committed
+	 */
+	private void append(ByteBuffer bytes, Consumer<IOException> onCommit) {
+		if(failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+		Record record = new Record(bytes, onCommit);
+		queue.add(record);
+		// If the journal failed meanwhile, the record is either failed by the committing thread, or taken back here
+		if(failure != null && queue.remove(record)) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	/**
+	 * Method run by the committing thread, which writes and forces each batch of appends, then runs their callbacks.
+	 */
+	private void commit() {
+		List<Record> batch = new ArrayList<Record>();
+		try {
+			while(true) {
+				batch.add(queue.take());
+				queue.drainTo(batch, maxBatch - 1);
+				boolean closing = batch.remove(CLOSE);
+				ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+				for(int i = 0; i < buffers.length; i++) {
+					buffers[i] = batch.get(i).bytes;
+					size += buffers[i].remaining();
+				}
+				writeFully(channel, buffers);
+				channel.force(false);
+				for(Record record : batch) {
+					if(record.onCommit != null) {
+						record.onCommit.accept(null);
+					}
+				}
+				batch.clear();
+				if(closing) {
+					return;
+				}
+				if(compactor != null && compactionDone) {
+					finishCompaction();
+				}
+				else if(compactor == null && size > Math.max(compactSize, 2 * compactedSize)) {
+					startCompaction();
+				}
+			}
+		} catch(IOException e) {
+			failure = e;
+			System.err.println("Journal failed: " + e.getMessage());
+			// Nothing more is committed, so every append which is waiting is told it never will be
+			queue.drainTo(batch);
+			for(Record record : batch) {
+				if(record.onCommit != null) {
+					record.onCommit.accept(e);
+				}
+			}
+		} catch(InterruptedException e) {
+			// The journal stops committing
+		}
+	}
+
+	/**
+	 * Method which starts compacting what has been committed so far, on a thread of its own, so commits carry on.
+	 * Sessions replayed to compact the journal are new ones, which are thrown away afterwards.
+	 */
+	private void startCompaction() {
+		final long end = size;
+		compactionEnd = end;
+		compactionDone = false;
+		compactionFailure = null;
+		compactor = new Thread(() -> {
+			try(FileChannel journal = FileChannel.open(file, StandardOpenOption.READ)) {
+				writeCompacted(temporaryFile(), replay(journal, end, name -> new SrpnSession(name, mode, bufferSize)));
+			} catch(IOException e) {
+				compactionFailure = e;
+			}
+			compactionDone = true;
+		}, "srpn-journal-compactor");
+		compactor.setDaemon(true);
+		compactor.start();
+	}
+
+	/**
+	 * Method which replaces the journal with the compacted one once it has been written,
+	 * after copying the appends committed since compacting started to the end of it.
+	 */
+	private void finishCompaction() throws IOException {
+		compactor = null;
+		if(compactionFailure != null) {
+			// The journal is compacted again once it has doubled in size
+			System.err.println("Journal compaction failed: " + compactionFailure.getMessage());
+			compactedSize = size;
+			Files.deleteIfExists(temporaryFile());
+			return;
+		}
+		replaceJournal(temporaryFile(), compactionEnd);
+	}
+
+	/**
+	 * Method which checks the start of a journal.
+	 *
+	 * @throws IOException
+	 * 			if it is not a journal of a version which can be read, for the same numeric mode
+	 */
+	private void checkHeader(FileChannel journal) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while(header.hasRemaining() && journal.read(header, header.position()) >= 0) {
+			// Read until the header is full or the journal ends
+		}
+		header.flip();
+		if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+			throw new IOException("Not an SRPN journal.");
+		}
+		short version = header.getShort();
+		if(version < 1 || version > VERSION) {
+			throw new IOException("Unsupported journal version " + version + ".");
+		}
+		byte journalMode = header.get();
+		if(journalMode != mode.ordinal()) {
+			String modeName = (journalMode >= 0 && journalMode < SrpnNumericMode.values().length) ? SrpnNumericMode.values()[journalMode].modeName : "an unknown";
+			throw new IOException("Journal is for " + modeName + " mode, not " + mode.modeName + ".");
+		}
+	}
+
+	/**
+	 * Method which replays each record of a journal after its header, up to the first which is unfinished or corrupt.
+	 *
+	 * @param journal
+	 * 			the journal
+	 * @param end
+	 * 			the amount of the journal which is replayed
+	 * @param sessions
+	 * 			creates a session with the given name, which its records are replayed into
+	 *
+	 * @return the replayed sessions, by their names
+	 * @throws IOException
+	 * 			if the journal cannot be read, or is not a journal for the same numeric mode
+	 */
+	private Map<String, Replay> replay(FileChannel journal, long end, Function<String, SrpnSession> sessions) throws IOException {
+		checkHeader(journal);
+		Map<String, Replay> replays = new LinkedHashMap<String, Replay>();
+		RecordReader records = new RecordReader(journal, HEADER_SIZE, end);
+		ByteBuffer record;
+		while((record = records.next()) != null) {
+			byte type;
+			String name;
+			SrpnSnapshot snapshot = null;
+			try {
+				type = record.get();
+				byte[] nameBytes = new byte[record.getShort()];
+				record.get(nameBytes);
+				name = new String(nameBytes, StandardCharsets.UTF_8);
+				if(type == SNAPSHOT) {
+					snapshot = SrpnSnapshot.fromBytes(record);
+					snapshot.checkMode(mode);
+				}
+			} catch(BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+				throw new IOException("Journal is corrupt.");
+			}
+			try {
+				if(type == SNAPSHOT) {
+					Replay replay = new Replay(sessions.apply(name), snapshot);
+					replay.session.srpn.restore(snapshot);
+					replays.put(name, replay);
+				}
+				else if(type == INPUT && replays.containsKey(name)) {
+					replays.get(name).process(StandardCharsets.UTF_8.decode(record).toString());
+				}
+			} catch(RuntimeException e) {
+				// The session stopped, as it did when the input was first processed
+				replays.remove(name);
+			}
+		}
+		return replays;
+	}
+
+	/**
+	 * Method which writes a compacted journal holding the given sessions to a file next to the journal,
+	 * which is then moved over it, so a crash leaves one or the other.
+	 */
+	private void writeCompacted(Path compactedFile, Map<String, Replay> replays) throws IOException {
+		List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putShort(VERSION).put((byte) mode.ordinal()).flip();
+		buffers.add(header);
+		for(Map.Entry<String, Replay> entry : replays.entrySet()) {
+			Replay replay = entry.getValue();
+			buffers.add(encode(SNAPSHOT, entry.getKey(), replay.base.toBytes()));
+			if(replay.tail.length() > 0) {
+				buffers.add(encode(INPUT, entry.getKey(), StandardCharsets.UTF_8.encode(CharBuffer.wrap(replay.tail))));
+			}
+		}
+
+		try(FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(compacted, buffers.toArray(new ByteBuffer[0]));
+			compacted.force(false);
+		}
+	}
+
+	/**
+	 * Method which moves a compacted journal over the journal, and opens it for appending.
+	 *
+	 * @param compactedFile
+	 * 			the compacted journal
+	 * @param compactedEnd
+	 * 			the amount of the journal which was compacted, after which appends are copied to the compacted journal
+	 */
+	private void replaceJournal(Path compactedFile, long compactedEnd) throws IOException {
+		if(channel != null) {
+			try(FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				long position = compactedEnd;
+				while(position < size) {
+					position += channel.transferTo(position, size - position, compacted);
+				}
+				compacted.force(false);
+			}
+			channel.close();
+		}
+		Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		size = channel.size();
+		compactedSize = size;
+		channel.position(size);
+	}
+
+	private Path temporaryFile() {
+		return file.resolveSibling(file.getFileName() + ".tmp");
+	}
+
+	/**
+	 * Method which writes every buffer to a channel, with as few writes as the channel allows.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+		int first = 0;
+		while(first < buffers.length) {
+			channel.write(buffers, first, buffers.length - first);
+			while(first < buffers.length && !buffers[first].hasRemaining()) {
+				first++;
+			}
+		}
+	}
+
+	/**
+	 * Method which encodes a record, ready to be written.
+	 */
+	private static ByteBuffer encode(byte type, String name, ByteBuffer contents) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		int length = 1 + Short.BYTES + nameBytes.length + contents.remaining();
+		ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length + Integer.BYTES);
+		record.putInt(length);
+		record.put(type);
+		record.putShort((short) nameBytes.length);
+		record.put(nameBytes);
+		record.put(contents);
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), Integer.BYTES, length);
+		record.putInt((int) crc.getValue());
+		record.flip();
+		return record;
+	}
+
+	/**
+	 * Reads the records of a journal one at a time, through a buffer, so the journal is never read as a whole.
+	 */
+	private static class RecordReader {
+		private final FileChannel journal;
+		private final long end;
+		// The next byte of the journal to be read into the buffer
+		private long position;
+		// The bytes read which have not been used yet
+		private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		private final CRC32 crc = new CRC32();
+
+		RecordReader(FileChannel journal, long start, long end) {
+			this.journal = journal;
+			this.end = end;
+			position = start;
+			buffer.limit(0);
+		}
+
+		/**
+		 * Method which reads the next record.
+		 *
+		 * @return the record after its length, up to its CRC, which may only be used until the next record is read,
+		 * 			or null if there are no more records, or the next is unfinished or corrupt
+		 */
+		ByteBuffer next() throws IOException {
+			if(!fill(Integer.BYTES)) {
+				return null;
+			}
+			int length = buffer.getInt(buffer.position());
+			if(length < 1 + Short.BYTES || length > end - (position - buffer.remaining()) - 2 * Integer.BYTES
+					|| !fill(length + 2 * Integer.BYTES)) {
+				return null;
+			}
+			int start = buffer.position() + Integer.BYTES;
+			crc.reset();
+			crc.update(buffer.array(), start, length);
+			if(buffer.getInt(start + length) != (int) crc.getValue()) {
+				return null;
+			}
+			ByteBuffer record = buffer.duplicate();
+			record.position(start).limit(start + length);
+			buffer.position(start + length + Integer.BYTES);
+			return record;
+		}
+
+		/**
+		 * Method which reads from the journal until the buffer holds at least the given amount of bytes,
+		 * growing it for a record larger than it, and shrinking it again afterwards.
+		 *
+		 * @return whether the journal held that many more bytes
+		 */
+		private boolean fill(int needed) throws IOException {
+			if(buffer.remaining() >= needed) {
+				return true;
+			}
+			int capacity = Math.max(needed, READ_BUFFER_SIZE);
+			if(capacity != buffer.capacity()) {
+				ByteBuffer resized = ByteBuffer.allocate(capacity);
+				resized.put(buffer);
+				buffer = resized;
+			}
+			else {
+				buffer.compact();
+			}
+			while(buffer.position() < needed && position < end) {
+				buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + (end - position)));
+				int read = journal.read(buffer, position);
+				if(read < 0) {
+					break;
+				}
+				position += read;
+			}
+			buffer.flip();
+			return buffer.remaining() >= needed;
+		}
+	}
+
+	/**
+	 * An append waiting to be committed.
+	 */
+	private static class Record {
+		final ByteBuffer bytes;
+		final Consumer<IOException> onCommit;
+
+		Record(ByteBuffer bytes, Consumer<IOException> onCommit) {
+			this.bytes = bytes;
+			this.onCommit = onCommit;
+		}
+	}
+
+	/**
+	 * A session being replayed, with what a compacted journal needs to make it again: a snapshot taken after
+	 * its last complete line, and the input it has had since.
+	 * Lines are split on '\n', '\r' or "\r\n", as they are by 'SrpnStreamInput'.
+	 */
+	private static class Replay {
+		final SrpnSession session;
+		SrpnSnapshot base;
+		final StringBuilder tail = new StringBuilder();
+		// A snapshot taken after a carriage return which ended the input so far, which is only a whole
+		// line break once the next input shows it is not followed by a line feed, or null
+		private SrpnSnapshot carriageReturnBase = null;
+
+		Replay(SrpnSession session, SrpnSnapshot base) {
+			this.session = session;
+			this.base = base;
+		}
+
+		void process(String chars) {
+			int start = 0;
+			int end = chars.length();
+			if(carriageReturnBase != null) {
+				if(chars.charAt(0) == '\n') {
+					session.process(CharBuffer.wrap(chars, 0, 1));
+					start = 1;
+					setBase(session.srpn.snapshot());
+				}
+				else {
+					setBase(carriageReturnBase);
+				}
+				carriageReturnBase = null;
+			}
+			boolean endsWithCarriageReturn = end > start && chars.charAt(end - 1) == '\r';
+			int lineEnd = start;
+			for(int i = endsWithCarriageReturn ? end - 2 : end - 1; i >= start; i--) {
+				if(chars.charAt(i) == '\n' || chars.charAt(i) == '\r') {
+					lineEnd = i + 1;
+					break;
+				}
+			}
+			if(lineEnd > start) {
+				session.process(CharBuffer.wrap(chars, start, lineEnd));
+				setBase(session.srpn.snapshot());
+				start = lineEnd;
+			}
+			tail.append(chars, start, end);
+			session.process(CharBuffer.wrap(chars, start, end));
+			if(endsWithCarriageReturn) {
+				carriageReturnBase = session.srpn.snapshot();
+			}
+		}
+
+		private void setBase(SrpnSnapshot snapshot) {
+			base = snapshot;
+			tail.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * The SrpnLatencyHistogram class for SRPN, which counts latencies in nanoseconds so their percentiles can be found.
+ * As in HdrHistogram, each power of two is split into 64 equal buckets, so every value is counted to within 1/64 of itself
+ * while the whole range of a long takes only a few thousand counts. Values below 128 are counted exactly.
+ *
+ * A histogram is not thread safe, so each thread records into its own, and they are added together to be reported.
+ * See 'SrpnProfiler' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProfiler.java
+ */
+
+public class SrpnLatencyHistogram {
+	// The amount of buckets each power of two is split into, as a power of two
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] counts = new long[bucketIndex(Long.MAX_VALUE) + 1];
+	private long totalCount = 0;
+	private long sum = 0;
+	private long max = 0;
+
+	/**
+	 * Method used to count a latency.
+	 *
+	 * @param nanos
+	 * 		the latency in nanoseconds, where a negative latency is counted as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts[bucketIndex(value)]++;
+		totalCount++;
+		sum += value;
+		if(value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Method used to add the counts of another histogram to this one.
+	 *
+	 * @param other
+	 * 		the histogram whose counts are added, which is not changed
+	 */
+	public void add(SrpnLatencyHistogram other) {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return (totalCount == 0) ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * Method used to find the latency which the given percentage of latencies are at or below.
+	 *
+	 * @param percentile
+	 * 		the percentage, from 0 to 100
+	 *
+	 * @return the highest latency counted in the same bucket as that latency, or 0 if nothing has been counted
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if(totalCount == 0) {
+			return 0;
+		}
+		// The amount of latencies which must be at or below the result, which is at least one
+		long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= countAtPercentile) {
+				return Math.min(highestValueInBucket(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Method which finds the bucket a value is counted in.
+	 * Values below 128 each have their own bucket, and each power of two above them is split into 64 buckets.
+	 */
+	private static int bucketIndex(long value) {
+		if(value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		// The top 7 bits of the value, from 64 to 127
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+		return (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Method which finds the highest value counted in a bucket. See 'bucketIndex' method.
+	 */
+	private static long highestValueInBucket(int index) {
+		if(index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		long highest = ((subBucket + 1) << shift) - 1;
+		// The very last bucket would go past the largest long
+		return (highest < 0) ? Long.MAX_VALUE : highest;
+	}
+}
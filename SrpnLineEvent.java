@@ -0,0 +1,41 @@
+/**
+ * The JFR event recorded for each line processed in '--profile' mode, holding how long each phase of the line took.
+ * Recorded with the rest of a flight recording, e.g. 'java -XX:StartFlightRecording=filename=srpn.jfr SRPN --batch --profile',
+ * lines can be lined up with garbage collections and other JVM events. See 'SrpnProfiler' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProfiledCalculator.java
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("srpn.Line")
+@Label("SRPN Line")
+@Category("SRPN")
+@Description("A line of input processed by the calculator")
+public class SrpnLineEvent extends jdk.jfr.Event {
+	@Label("Length")
+	int length;
+
+	@Label("Tokenize")
+	@Timespan(Timespan.NANOSECONDS)
+	long tokenizeTime;
+
+	@Label("Literal Conversion")
+	@Timespan(Timespan.NANOSECONDS)
+	long literalTime;
+
+	@Label("Operation")
+	@Timespan(Timespan.NANOSECONDS)
+	long operationTime;
+
+	@Label("Output")
+	@Timespan(Timespan.NANOSECONDS)
+	long outputTime;
+}
@@ -0,0 +1,150 @@
+/**
+ * The class that handles the input processing and error checking for SRPN in 'int64' mode. See 'SrpnNumericMode' class.
+ * Lines are compiled and executed as they are by 'SrpnProcessInput', but values are held on a stack of longs
+ * and saturate at the long range rather than the integer range.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProcessInput.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnLongProcessInput implements SrpnCalculator {
+	// Receives the results and errors printed by this calculator
+	SrpnOutput srpnOutput;
+	SrpnLongStack srpnStack;
+
+	// Gives the numbers used in the 'r' command, which are the same in every mode
+	private SrpnRandomSource randomSource = new SrpnGlibcRandom();
+
+	// Holds each line as it is compiled, so no program is created for every line
+	private final SrpnProgram lineProgram = new SrpnProgram();
+
+	// Keeps the compiled programs of recent lines, or null if every line is compiled
+	private SrpnProgramCache programCache = null;
+
+	/**
+	 * Constructor which takes the output results and errors are sent to.
+	 *
+	 * @param output
+	 * 			the output for this calculator's results and errors
+	 */
+	public SrpnLongProcessInput(SrpnOutput output) {
+		srpnOutput = output;
+		srpnStack = new SrpnLongStack(output);
+	}
+
+	public void processCommand(CharSequence s, int start, int end) {
+		if(programCache != null) {
+			processLine(programCache.get(s, start, end));
+			return;
+		}
+		lineProgram.clear();
+		compile(s, start, end, lineProgram);
+		processLine(lineProgram);
+	}
+
+	public void compile(CharSequence s, int start, int end, SrpnProgram program) {
+		SrpnCompiler.compile(s, start, end, program, SrpnNumericMode.INT64);
+	}
+
+	public void processLine(SrpnProgram program) {
+		execute(program);
+	}
+
+	/**
+	 * Method used to execute a line compiled for 'int64' mode.
+	 * 
+	 * @param program
+	 * 			the compiled line
+	 */
+	public void execute(SrpnProgram program) {
+		int[] code = program.code;
+		int length = program.length;
+		for(int pc = 0; pc < length; pc++){
+			int opcode = code[pc];
+			switch(opcode){
+			case SrpnProgram.PUSH_LONG:
+				srpnStack.pushLong(program.longOperand(pc));
+				pc += 2;
+				break;
+			case SrpnProgram.PRINT_TOP:
+				srpnOutput.printResult(srpnStack.peekLong());
+				break;
+			case SrpnProgram.DUMP:
+				srpnStack.printStack();
+				break;
+			case SrpnProgram.RAND:
+				srpnStack.pushLong(randomSource.nextInt());
+				break;
+			case SrpnProgram.UNKNOWN:
+				srpnOutput.printError("Unrecognised operator or operand \"" + (char) code[++pc] + "\".");
+				break;
+			default:
+				performOperation(opcode);
+				break;
+			}
+		}
+	}
+
+	public void setProgramCache(SrpnProgramCache cache) {
+		programCache = cache;
+	}
+
+	public void setRandomSource(SrpnRandomSource source) {
+		randomSource = source;
+	}
+
+	public void reset() {
+		srpnStack.clear();
+		randomSource.reset();
+	}
+
+	public SrpnSnapshot snapshot() {
+		long[] values = srpnStack.toArray();
+		BigInteger[] stack = new BigInteger[values.length];
+		for(int i = 0; i < values.length; i++) {
+			stack[i] = BigInteger.valueOf(values[i]);
+		}
+		return new SrpnSnapshot(SrpnNumericMode.INT64, stack, randomSource.copy());
+	}
+
+	public void restore(SrpnSnapshot snapshot) {
+		snapshot.checkMode(SrpnNumericMode.INT64);
+		srpnStack.clear();
+		for(BigInteger value : snapshot.getStack()) {
+			srpnStack.pushLong(value.longValue());
+		}
+		randomSource = snapshot.getRandomSource();
+	}
+
+	/** 
+	 * Method which performs the given operation on the first two operands on the stack, and pushes its saturated result.
+	 * See 'performOperation' method in 'SrpnProcessInput' class.
+	 * 
+	 * @param operation
+	 * 		the instruction for the operation which is to be performed on the operands. See 'SrpnProgram' class.
+	 */
+	private void performOperation(int operation){
+		// Checks for stack underflow
+		if(srpnStack.size() < 2){
+			srpnOutput.printError("Stack underflow.");
+			return;
+		}
+		long firstOperand = srpnStack.popLong();
+		long secondOperand = srpnStack.popLong();
+		LongOperator operator = LongOperator.forOpcode(operation);
+
+		if(operator.isUndefined(firstOperand)){
+			// Push user input on stack regardless
+			srpnStack.pushLong(secondOperand);
+			srpnStack.pushLong(firstOperand);
+			srpnOutput.printError(operator.undefinedError);
+		}
+		else{
+			srpnStack.pushLong(operator.apply(firstOperand, secondOperand));
+		}
+	}
+}
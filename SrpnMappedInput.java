@@ -0,0 +1,322 @@
+/**
+ * The SrpnMappedInput class for SRPN, which reads very large input files by memory mapping them a window at a time.
+ * Lines are handed to the calculator straight from the mapped bytes, without decoding each one into a String first.
+ * Lines are split as 'BufferedReader.readLine' splits them, including lines which cross from one window into the next.
+ * A line which carries on past the chunk it starts in is given to a 'SrpnStreamInput' a chunk at a time, if one is set,
+ * which processes it in parts and keeps only its last token, so memory use is bounded however long the line is.
+ * Otherwise the line is carried whole into the next chunk.
+ *
+ * Lines made up only of ASCII characters are read directly. Any other line is decoded with the default character set,
+ * which is assumed to be ASCII compatible, as UTF-8 and the ISO-8859 character sets are.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBatch.java
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public class SrpnMappedInput {
+	// The default amount of the file which is mapped at once
+	static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+
+	private long windowSize;
+
+	// The amount of a window which is copied out and scanned at once
+	static final int CHUNK_SIZE = 1 << 16;
+
+	private byte[] chunk = new byte[CHUNK_SIZE];
+
+	// The usual size of the carried bytes, which they shrink back to after a longer line
+	private static final int CARRY_SIZE = 256;
+
+	// Holds the start of a line which carries on into the next chunk, and grows if a longer line is found.
+	// With a stream input, only holds the bytes of a character which carries on into the next chunk.
+	private byte[] carriedBytes = new byte[CARRY_SIZE];
+	private int carriedLength = 0;
+	private boolean lineIsAscii = true;
+	// Whether the last byte was a '\r', so a following '\n' is part of the same line break
+	private boolean skipLineFeed = false;
+
+	// The byte offset in the file of the current chunk, and of the line after the one being processed
+	private long chunkOffset = 0;
+	private long nextLineOffset = 0;
+
+	// The current line, as read by the calculator
+	private final AsciiLine asciiLine = new AsciiLine();
+
+	// Processes lines which carry on into the next chunk, or null if they are carried whole
+	private SrpnStreamInput streamInput = null;
+	// Whether the current line has been given to the stream input in part already
+	private boolean inStreamedLine = false;
+	// Decodes the parts of a line given to the stream input, replacing undecodable input as 'new String' does
+	private final CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+		.onMalformedInput(CodingErrorAction.REPLACE)
+		.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final CharBuffer decodedChars = CharBuffer.allocate(CHUNK_SIZE);
+
+	/**
+	 * Constructor which uses the default window size.
+	 */
+	public SrpnMappedInput() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Constructor which sets how much of the file is mapped at once.
+	 *
+	 * @param windowSize
+	 * 			the size of each mapped window in bytes
+	 */
+	public SrpnMappedInput(long windowSize) {
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * Method used to set the stream input lines which carry on into the next chunk are given to.
+	 * Such lines are processed by its calculator, and passed to its line listener rather than the line processor,
+	 * so it must be processing lines in the same way.
+	 *
+	 * @param streamInput
+	 * 			the stream input, or null to carry such lines whole
+	 */
+	public void setStreamInput(SrpnStreamInput streamInput) {
+		this.streamInput = streamInput;
+	}
+
+	/**
+	 * Method which processes every line of a file.
+	 *
+	 * @param file
+	 * 			the file to be processed
+	 * @param lineProcessor
+	 * 			processes each line, e.g. 'SrpnProcessInput.processCommand'
+	 */
+	public void processFile(Path file, Consumer<CharSequence> lineProcessor) throws IOException {
+		processFile(file, 0, lineProcessor);
+	}
+
+	/**
+	 * Method which processes every line of a file from the given byte offset, e.g. to carry on from a checkpoint.
+	 *
+	 * @param file
+	 * 			the file to be processed
+	 * @param startOffset
+	 * 			the byte offset of the first line to be processed, which must be the start of a line
+	 * @param lineProcessor
+	 * 			processes each line, e.g. 'SrpnProcessInput.processCommand'
+	 */
+	public void processFile(Path file, long startOffset, Consumer<CharSequence> lineProcessor) throws IOException {
+		carriedLength = 0;
+		lineIsAscii = true;
+		skipLineFeed = false;
+		inStreamedLine = false;
+		decoder.reset();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if(startOffset > 0 && startOffset < fileSize) {
+				// A '\n' at the start offset is part of the line break before it
+				ByteBuffer previousByte = ByteBuffer.allocate(1);
+				channel.read(previousByte, startOffset - 1);
+				skipLineFeed = previousByte.get(0) == '\r';
+			}
+			for(long position = startOffset; position < fileSize; position += windowSize) {
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, fileSize - position));
+				// Copies the window out a chunk at a time, as scanning an array is quicker than reading the buffer byte by byte
+				while(window.hasRemaining()) {
+					chunkOffset = position + window.position();
+					int chunkLength = Math.min(window.remaining(), CHUNK_SIZE);
+					window.get(chunk, 0, chunkLength);
+					processChunk(chunkLength, lineProcessor);
+				}
+			}
+			nextLineOffset = Math.max(fileSize, startOffset);
+		}
+		// The last line does not need a line break
+		if(inStreamedLine) {
+			endStreamedLine();
+		}
+		else if(carriedLength > 0) {
+			processLine(carriedBytes, 0, carriedLength, lineProcessor);
+		}
+	}
+
+	/**
+	 * Method used to find where the line after the one being processed starts, e.g. to record a checkpoint.
+	 * Only valid while a line is being processed.
+	 *
+	 * @return the byte offset in the file of the next line, or the size of the file if this is the last line
+	 */
+	public long getNextLineOffset() {
+		return nextLineOffset;
+	}
+
+	/**
+	 * Method which splits a chunk of the file into lines, carrying any unfinished line into the next chunk.
+	 */
+	private void processChunk(int chunkLength, Consumer<CharSequence> lineProcessor) {
+		int lineStart = 0;
+		for(int i = 0; i < chunkLength; i++) {
+			byte currentByte = chunk[i];
+			if(currentByte == '\n' || currentByte == '\r') {
+				// A '\n' straight after a '\r' ends the same line
+				if(currentByte == '\n' && skipLineFeed) {
+					skipLineFeed = false;
+					lineStart = i + 1;
+					continue;
+				}
+				nextLineOffset = chunkOffset + i + 1;
+				if(inStreamedLine) {
+					stream(lineStart, i);
+					endStreamedLine();
+				}
+				else if(carriedLength > 0) {
+					carry(lineStart, i);
+					processLine(carriedBytes, 0, carriedLength, lineProcessor);
+				}
+				else {
+					processLine(chunk, lineStart, i - lineStart, lineProcessor);
+				}
+				skipLineFeed = currentByte == '\r';
+				lineStart = i + 1;
+			}
+			else {
+				skipLineFeed = false;
+				if(currentByte < 0) {
+					lineIsAscii = false;
+				}
+			}
+		}
+		if(streamInput != null) {
+			stream(lineStart, chunkLength);
+		}
+		else {
+			carry(lineStart, chunkLength);
+		}
+	}
+
+	/**
+	 * Method which gives part of the current chunk to the stream input, as part of the line which carries on past it.
+	 */
+	private void stream(int start, int end) {
+		if(carriedLength > 0) {
+			// The first character carries on from the bytes kept from the last chunk
+			carry(start, end);
+			decode(carriedBytes, 0, carriedLength, false);
+		}
+		else if(start < end) {
+			decode(chunk, start, end, false);
+		}
+	}
+
+	/**
+	 * Method which ends the line given to the stream input, processing the rest of it.
+	 */
+	private void endStreamedLine() {
+		decode(carriedBytes, 0, carriedLength, true);
+		decoder.flush(decodedChars);
+		decodedChars.flip();
+		streamInput.process(decodedChars);
+		decodedChars.clear();
+		decoder.reset();
+		streamInput.finish();
+		inStreamedLine = false;
+		clearCarried();
+	}
+
+	/**
+	 * Method which decodes bytes of the current line and gives them to the stream input.
+	 * Bytes which end part way through a character are kept, unless they are the end of the line.
+	 */
+	private void decode(byte[] bytes, int start, int end, boolean endOfLine) {
+		ByteBuffer input = ByteBuffer.wrap(bytes, start, end - start);
+		CoderResult result;
+		do {
+			result = decoder.decode(input, decodedChars, endOfLine);
+			decodedChars.flip();
+			streamInput.process(decodedChars);
+			decodedChars.clear();
+		} while(result.isOverflow());
+		carriedLength = input.remaining();
+		System.arraycopy(bytes, input.position(), carriedBytes, 0, carriedLength);
+		inStreamedLine = true;
+	}
+
+	/**
+	 * Method which adds part of the current chunk to the line being carried into the next chunk.
+	 */
+	private void carry(int start, int end) {
+		int length = end - start;
+		if(carriedLength + length > carriedBytes.length) {
+			carriedBytes = Arrays.copyOf(carriedBytes, Math.max(carriedBytes.length * 2, carriedLength + length));
+		}
+		System.arraycopy(chunk, start, carriedBytes, carriedLength, length);
+		carriedLength += length;
+	}
+
+	/**
+	 * Method which passes a line to the line processor, and starts a new line.
+	 */
+	private void processLine(byte[] bytes, int offset, int length, Consumer<CharSequence> lineProcessor) {
+		if(lineIsAscii) {
+			asciiLine.bytes = bytes;
+			asciiLine.offset = offset;
+			asciiLine.length = length;
+			lineProcessor.accept(asciiLine);
+		}
+		else {
+			lineProcessor.accept(new String(bytes, offset, length, Charset.defaultCharset()));
+		}
+		clearCarried();
+	}
+
+	/**
+	 * Method which starts a new line, shrinking the carried bytes if they grew for a long line.
+	 */
+	private void clearCarried() {
+		carriedLength = 0;
+		lineIsAscii = true;
+		if(carriedBytes.length > CARRY_SIZE) {
+			carriedBytes = new byte[CARRY_SIZE];
+		}
+	}
+
+	/**
+	 * The current line read directly from its bytes, which are all ASCII characters.
+	 * Only valid until the next line is read.
+	 */
+	private static class AsciiLine implements CharSequence {
+		byte[] bytes;
+		int offset;
+		int length;
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			return (char) bytes[offset + index];
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			return new String(bytes, offset + start, end - start, Charset.defaultCharset());
+		}
+
+		public String toString() {
+			return new String(bytes, offset, length, Charset.defaultCharset());
+		}
+	}
+}
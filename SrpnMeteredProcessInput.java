@@ -0,0 +1,122 @@
+/**
+ * The SrpnMeteredProcessInput class for SRPN, which is the 'int32' calculator used when metrics are turned on.
+ * It processes input exactly as 'SrpnProcessInput' does, and counts its lines, tokens, operations, saturations, errors
+ * and stack depth in a 'SrpnMetrics'.
+ *
+ * The counting is done by overriding the calculator and its stack, rather than by checking whether metrics are on
+ * in the calculator itself. Without metrics this class is never loaded, so the calculator's calls are not changed at all.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnMetrics.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnMeteredProcessInput extends SrpnProcessInput {
+	private final SrpnMetrics metrics;
+	private final MeteredStack meteredStack;
+
+	// Holds the amount of each kind of token in a program as it is counted. See 'SrpnMetrics.countTokens' method.
+	private final long[] tokenCounts = new long[SrpnProgram.CONST];
+
+	/**
+	 * Constructor which takes the output results and errors are sent to, and the metrics they are counted in.
+	 *
+	 * @param output
+	 * 			the output for this calculator's results and errors
+	 * @param metrics
+	 * 			the metrics this calculator's work is counted in, which may be shared with other calculators
+	 */
+	public SrpnMeteredProcessInput(SrpnOutput output, SrpnMetrics metrics) {
+		super(new MeteredOutput(output, metrics));
+		this.metrics = metrics;
+		meteredStack = new MeteredStack(srpnOutput);
+		srpnStack = meteredStack;
+	}
+
+	public void processLine(SrpnProgram program) {
+		super.processLine(program);
+		// The depth includes any earlier parts of a long line, which are executed on their own. See 'SrpnStreamInput' class.
+		metrics.recordLine(meteredStack.maxSize);
+		meteredStack.maxSize = meteredStack.size();
+	}
+
+	public void execute(SrpnProgram program) {
+		SrpnMetrics.countTokens(program, tokenCounts);
+		metrics.recordTokens(tokenCounts);
+		// Literals were saturated when compiled, so are marked on the program rather than seen as they are pushed
+		if(program.saturatedLiterals > 0) {
+			metrics.recordSaturations(program.saturatedLiterals);
+		}
+		super.execute(program);
+	}
+
+	void operationApplied(Operator operator, int firstOperand, int secondOperand, int result) {
+		metrics.recordOperation(operator.opcode);
+		// Only a result at the end of the integer range may have been saturated
+		if((result == 2147483647 || result == -2147483648) && operator.saturates(firstOperand, secondOperand)) {
+			metrics.recordSaturation();
+		}
+	}
+
+	void foldApplied(int[] code, int pc) {
+		// The replaced instructions would have grown the stack this far, and their operations are still counted
+		meteredStack.maxSize = Math.max(meteredStack.maxSize, meteredStack.size() + code[pc + 2]);
+		int end = pc + 4 + code[pc + 3];
+		for(int i = pc + 4; i < end; i += 1 + SrpnProgram.operandCount(code[i])) {
+			if(code[i] != SrpnProgram.PUSH) {
+				metrics.recordOperation(code[i]);
+			}
+		}
+	}
+
+	/**
+	 * A stack which keeps the most elements it has held during the current line.
+	 */
+	private static class MeteredStack extends SrpnStack {
+		int maxSize = 0;
+
+		MeteredStack(SrpnOutput output) {
+			super(output);
+		}
+
+		public void pushInt(int operationResult) {
+			super.pushInt(operationResult);
+			if(size() > maxSize) {
+				maxSize = size();
+			}
+		}
+	}
+
+	/**
+	 * An output which counts each error before passing it on.
+	 */
+	private static class MeteredOutput implements SrpnOutput {
+		private final SrpnOutput output;
+		private final SrpnMetrics metrics;
+
+		MeteredOutput(SrpnOutput output, SrpnMetrics metrics) {
+			this.output = output;
+			this.metrics = metrics;
+		}
+
+		public void printResult(int value) {
+			output.printResult(value);
+		}
+
+		public void printResult(long value) {
+			output.printResult(value);
+		}
+
+		public void printResult(BigInteger value) {
+			output.printResult(value);
+		}
+
+		public void printError(String message) {
+			metrics.recordError(message);
+			output.printError(message);
+		}
+	}
+}
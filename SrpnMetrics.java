@@ -0,0 +1,306 @@
+/**
+ * The SrpnMetrics class for SRPN, which counts what the calculator spends its time on when metrics are turned on
+ * with '--metrics'. Counts are kept in 'LongAdder's, so calculators on many threads can add to them without contending.
+ *
+ * The counts are made by 'SrpnMeteredProcessInput', which is only created when metrics are turned on,
+ * so a calculator without metrics runs exactly the same code as before.
+ * They can be read over JMX as 'SRPN:type=Metrics', and are printed to standard error when the program exits.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnMeteredProcessInput.java
+ */
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SrpnMetrics implements SrpnMetricsMBean {
+	// The name the metrics are registered under
+	static final String OBJECT_NAME = "SRPN:type=Metrics";
+
+	private final LongAdder lines = new LongAdder();
+
+	private final LongAdder operandTokens = new LongAdder();
+	private final LongAdder operatorTokens = new LongAdder();
+	private final LongAdder commandTokens = new LongAdder();
+	private final LongAdder unknownTokens = new LongAdder();
+
+	// The operations which were performed, indexed by their instruction. See 'SrpnProgram' class.
+	private final LongAdder[] operations = new LongAdder[SrpnProgram.POW + 1];
+
+	private final LongAdder saturations = new LongAdder();
+	private final LongAdder divideByZeroErrors = new LongAdder();
+	private final LongAdder negativePowerErrors = new LongAdder();
+	private final LongAdder underflowErrors = new LongAdder();
+	private final LongAdder overflowErrors = new LongAdder();
+	private final LongAccumulator maxStackDepth = new LongAccumulator(Math::max, 0);
+
+	// When lines started being counted
+	private volatile long startTime = System.nanoTime();
+
+	/**
+	 * Constructor which starts every count at 0.
+	 */
+	public SrpnMetrics() {
+		for(int opcode = SrpnProgram.ADD; opcode <= SrpnProgram.POW; opcode++) {
+			operations[opcode] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Method used to create metrics which are registered over JMX and printed to standard error on exit.
+	 *
+	 * @return the metrics
+	 */
+	public static SrpnMetrics enable() {
+		SrpnMetrics metrics = new SrpnMetrics();
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+		} catch(JMException e) {
+			// The metrics are still printed on exit
+			System.err.println(e.getMessage());
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			metrics.print(System.err);
+			System.err.flush();
+		}));
+		return metrics;
+	}
+
+	/**
+	 * Method used to count the tokens of a compiled line as it is executed.
+	 *
+	 * @param counts
+	 * 		the amount of each kind of token in the line. See 'countTokens' method.
+	 */
+	void recordTokens(long[] counts) {
+		long operators = 0;
+		for(int operation = SrpnProgram.ADD; operation <= SrpnProgram.POW; operation++) {
+			operators += counts[operation];
+		}
+		addIfNotZero(operandTokens, counts[SrpnProgram.PUSH]);
+		addIfNotZero(operatorTokens, operators);
+		addIfNotZero(commandTokens, counts[SrpnProgram.PRINT_TOP]);
+		addIfNotZero(unknownTokens, counts[SrpnProgram.UNKNOWN]);
+	}
+
+	/**
+	 * Method used to count the tokens of a compiled line by kind. Operands are counted as 'PUSH', commands as 'PRINT_TOP',
+	 * and each operation and unknown character as its own instruction. See 'SrpnProgram' class.
+	 * The instructions replaced by a folded value are counted, as they are the tokens of the line. See 'SrpnOptimizer' class.
+	 *
+	 * @param program
+	 * 		the compiled line
+	 * @param counts
+	 * 		the array the counts are written to, indexed by instruction
+	 */
+	static void countTokens(SrpnProgram program, long[] counts) {
+		Arrays.fill(counts, 0);
+		int[] code = program.code;
+		int length = program.length;
+		int pc = 0;
+		while(pc < length) {
+			int opcode = code[pc];
+			switch(opcode) {
+			case SrpnProgram.PUSH:
+			case SrpnProgram.PUSH_LONG:
+			case SrpnProgram.PUSH_BIG:
+				counts[SrpnProgram.PUSH]++;
+				break;
+			case SrpnProgram.PRINT_TOP:
+			case SrpnProgram.DUMP:
+			case SrpnProgram.RAND:
+				counts[SrpnProgram.PRINT_TOP]++;
+				break;
+			case SrpnProgram.CONST:
+				break;
+			default:
+				counts[opcode]++;
+				break;
+			}
+			pc += 1 + SrpnProgram.operandCount(opcode);
+		}
+	}
+
+	/**
+	 * Method used to count a processed line, and the deepest the stack was while it was processed.
+	 *
+	 * @param stackDepth
+	 * 		the most elements there were on the stack
+	 */
+	void recordLine(int stackDepth) {
+		lines.increment();
+		maxStackDepth.accumulate(stackDepth);
+	}
+
+	/**
+	 * Method used to count an operation which was performed, rather than refused with an error.
+	 *
+	 * @param opcode
+	 * 		the operation's instruction, e.g. 'SrpnProgram.ADD'
+	 */
+	void recordOperation(int opcode) {
+		operations[opcode].increment();
+	}
+
+	/**
+	 * Method used to count an operation whose result was saturated.
+	 */
+	void recordSaturation() {
+		saturations.increment();
+	}
+
+	/**
+	 * Method used to count the literals of a line which were saturated when it was compiled.
+	 *
+	 * @param count
+	 * 		the amount of saturated literals
+	 */
+	void recordSaturations(int count) {
+		saturations.add(count);
+	}
+
+	/**
+	 * Method used to count an error printed by the calculator.
+	 *
+	 * @param message
+	 * 		the error message
+	 */
+	void recordError(String message) {
+		switch(message) {
+		case "Divide by 0.":
+			divideByZeroErrors.increment();
+			break;
+		case "Negative power.":
+			negativePowerErrors.increment();
+			break;
+		case "Stack underflow.":
+			underflowErrors.increment();
+			break;
+		case "Stack overflow.":
+			overflowErrors.increment();
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Method used to print every count, one per line.
+	 *
+	 * @param out
+	 * 		the stream the counts are printed to
+	 */
+	public void print(PrintStream out) {
+		out.println("SRPN metrics:");
+		out.println("  lines: " + getLines() + String.format(" (%.1f per second)", getLinesPerSecond()));
+		out.println("  tokens: " + getOperandTokens() + " operands, " + getOperatorTokens() + " operators, "
+			+ getCommandTokens() + " commands, " + getUnknownTokens() + " unknown");
+		out.println("  operations: " + getAdditions() + " +, " + getSubtractions() + " -, " + getMultiplications() + " *, "
+			+ getDivisions() + " /, " + getModuli() + " %, " + getPowers() + " ^");
+		out.println("  saturations: " + getSaturations());
+		out.println("  errors: " + getDivideByZeroErrors() + " divide by 0, " + getNegativePowerErrors() + " negative power, "
+			+ getUnderflowErrors() + " underflow, " + getOverflowErrors() + " overflow");
+		out.println("  max stack depth: " + getMaxStackDepth());
+	}
+
+	public long getLines() {
+		return lines.sum();
+	}
+
+	public double getLinesPerSecond() {
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		return (seconds > 0) ? getLines() / seconds : 0;
+	}
+
+	public long getOperandTokens() {
+		return operandTokens.sum();
+	}
+
+	public long getOperatorTokens() {
+		return operatorTokens.sum();
+	}
+
+	public long getCommandTokens() {
+		return commandTokens.sum();
+	}
+
+	public long getUnknownTokens() {
+		return unknownTokens.sum();
+	}
+
+	public long getAdditions() {
+		return operations[SrpnProgram.ADD].sum();
+	}
+
+	public long getSubtractions() {
+		return operations[SrpnProgram.SUB].sum();
+	}
+
+	public long getMultiplications() {
+		return operations[SrpnProgram.MUL].sum();
+	}
+
+	public long getDivisions() {
+		return operations[SrpnProgram.DIV].sum();
+	}
+
+	public long getModuli() {
+		return operations[SrpnProgram.MOD].sum();
+	}
+
+	public long getPowers() {
+		return operations[SrpnProgram.POW].sum();
+	}
+
+	public long getSaturations() {
+		return saturations.sum();
+	}
+
+	public long getDivideByZeroErrors() {
+		return divideByZeroErrors.sum();
+	}
+
+	public long getNegativePowerErrors() {
+		return negativePowerErrors.sum();
+	}
+
+	public long getUnderflowErrors() {
+		return underflowErrors.sum();
+	}
+
+	public long getOverflowErrors() {
+		return overflowErrors.sum();
+	}
+
+	public long getMaxStackDepth() {
+		return maxStackDepth.get();
+	}
+
+	public void reset() {
+		for(LongAdder counter : new LongAdder[] {lines, operandTokens, operatorTokens, commandTokens, unknownTokens,
+				saturations, divideByZeroErrors, negativePowerErrors, underflowErrors, overflowErrors}) {
+			counter.reset();
+		}
+		for(int opcode = SrpnProgram.ADD; opcode <= SrpnProgram.POW; opcode++) {
+			operations[opcode].reset();
+		}
+		maxStackDepth.reset();
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * Method which adds to a counter only if there is something to add, so unused counters are not written to.
+	 */
+	private static void addIfNotZero(LongAdder counter, long amount) {
+		if(amount != 0) {
+			counter.add(amount);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * The management interface of 'SrpnMetrics', through which its counts are read over JMX.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnMetrics.java
+ */
+
+public interface SrpnMetricsMBean {
+	long getLines();
+	double getLinesPerSecond();
+
+	long getOperandTokens();
+	long getOperatorTokens();
+	long getCommandTokens();
+	long getUnknownTokens();
+
+	long getAdditions();
+	long getSubtractions();
+	long getMultiplications();
+	long getDivisions();
+	long getModuli();
+	long getPowers();
+
+	long getSaturations();
+	long getDivideByZeroErrors();
+	long getNegativePowerErrors();
+	long getUnderflowErrors();
+	long getOverflowErrors();
+	long getMaxStackDepth();
+
+	/**
+	 * Method used to set every count back to 0, and start timing lines per second again.
+	 */
+	void reset();
+}
@@ -0,0 +1,105 @@
+/**
+ * The SrpnNumericMode enum for SRPN, which selects how wide the calculator's values are.
+ * The mode is chosen at startup, and decides the stack, the operator kernels and how literals are read:
+ *
+ * 'int32' is the original calculator, which saturates at the integer range, including its quirks for long literals.
+ * 'int64' saturates at the long range, with literals read exactly until they saturate.
+ * 'bigint' never saturates, though results over 'BigOperator.MAX_BITS' bits are refused.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnCalculator.java
+ */
+
+public enum SrpnNumericMode {
+	INT32("int32"),
+	INT64("int64"),
+	BIG_INTEGER("bigint");
+
+	// The name the mode is selected by on the command-line
+	final String modeName;
+
+	SrpnNumericMode(String modeName) {
+		this.modeName = modeName;
+	}
+
+	/**
+	 * Method used to create a calculator which works in this mode.
+	 *
+	 * @param output
+	 * 		the output for the calculator's results and errors
+	 *
+	 * @return the calculator
+	 */
+	public SrpnCalculator createCalculator(SrpnOutput output) {
+		switch(this) {
+		case INT64:
+			return new SrpnLongProcessInput(output);
+		case BIG_INTEGER:
+			return new SrpnBigProcessInput(output);
+		default:
+			return new SrpnProcessInput(output);
+		}
+	}
+
+	/**
+	 * Method used to create a calculator for this mode which counts its work in the given metrics.
+	 * Metrics are only counted in 'int32' mode. See 'SrpnMeteredProcessInput' class.
+	 *
+	 * @param output
+	 * 		the output for the calculator's results and errors
+	 * @param metrics
+	 * 		the metrics the calculator's work is counted in, or null for a calculator without metrics
+	 *
+	 * @return the calculator
+	 */
+	public SrpnCalculator createCalculator(SrpnOutput output, SrpnMetrics metrics) {
+		if(metrics == null) {
+			return createCalculator(output);
+		}
+		if(this != INT32) {
+			throw new IllegalArgumentException("Metrics are only available in int32 mode.");
+		}
+		return new SrpnMeteredProcessInput(output, metrics);
+	}
+
+	/**
+	 * Method used to create a calculator for this mode which counts its work in the given metrics,
+	 * and has each of its lines timed by the given profiler. See 'SrpnProfiledCalculator' class.
+	 *
+	 * @param output
+	 * 		the output for the calculator's results and errors
+	 * @param metrics
+	 * 		the metrics the calculator's work is counted in, or null for a calculator without metrics
+	 * @param profiler
+	 * 		the profiler the calculator's lines are timed by, or null for a calculator which is not profiled
+	 *
+	 * @return the calculator
+	 */
+	public SrpnCalculator createCalculator(SrpnOutput output, SrpnMetrics metrics, SrpnProfiler profiler) {
+		if(profiler == null) {
+			return createCalculator(output, metrics);
+		}
+		return new SrpnProfiledCalculator(output, this, metrics, profiler);
+	}
+
+	/**
+	 * Method used to find a mode from its command-line name.
+	 *
+	 * @param modeName
+	 * 		'int32', 'int64' or 'bigint'
+	 *
+	 * @return the mode
+	 * @throws IllegalArgumentException
+	 * 		if there is no mode with the given name
+	 */
+	public static SrpnNumericMode forName(String modeName) {
+		for(SrpnNumericMode mode : values()) {
+			if(mode.modeName.equals(modeName)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Unknown numeric mode \"" + modeName + "\", expected int32, int64 or bigint.");
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * The SrpnOperandAccumulator class for SRPN, which reads an operand a few digits at a time, for operands which are too long
+ * to be held in memory at once. See 'SrpnStreamInput' class.
+ * Only as much of the operand as decides its value is kept, so the result is the same as compiling the whole operand
+ * with 'SrpnCompiler', including its saturation and octal rules, in every numeric mode.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnCompiler.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnOperandAccumulator {
+	// The amount of decimal or octal digits gathered into a long before a 'bigint' value is shifted up by them
+	private static final int DECIMAL_CHUNK = 18;
+	private static final int OCTAL_CHUNK = 20;
+
+	private final SrpnNumericMode mode;
+
+	private boolean isNegative;
+	private boolean isOctal;
+	// The amount of digits read, and whether an '8' or '9' has ended an octal
+	private long digitCount;
+	private boolean isStopped;
+	// The octal digits read after any skipped leading zeros, and the first of them. See 'SrpnCompiler.octalValue' method.
+	private long significantDigitCount;
+	private int mostSignificantDigit;
+
+	// The value so far, and whether it has already saturated
+	private long value;
+	private boolean isSaturated;
+
+	// The value so far in 'bigint' mode, with the digits not yet added to it
+	private BigInteger bigValue;
+	private long chunk;
+	private int chunkDigits;
+
+	/**
+	 * Constructor which takes the numeric mode operands are read for.
+	 *
+	 * @param mode
+	 * 			the numeric mode, which decides how wide the pushed value is
+	 */
+	public SrpnOperandAccumulator(SrpnNumericMode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Method used to start reading a new operand.
+	 *
+	 * @param isNegative
+	 * 			whether or not the operand was preceeded by a '-'
+	 */
+	public void start(boolean isNegative) {
+		this.isNegative = isNegative;
+		isOctal = false;
+		digitCount = 0;
+		isStopped = false;
+		significantDigitCount = 0;
+		mostSignificantDigit = 0;
+		value = 0;
+		isSaturated = false;
+		bigValue = BigInteger.ZERO;
+		chunk = 0;
+		chunkDigits = 0;
+	}
+
+	/**
+	 * Method used to read the next digit of the operand.
+	 *
+	 * @param c
+	 * 			the digit, which must be classified as one. See 'SrpnCharacterClass' class.
+	 */
+	public void add(char c) {
+		if(digitCount++ == 0) {
+			// An operand starting with '0' is an octal. A lone '0' is 0 either way.
+			isOctal = c == '0';
+		}
+		if(isStopped) {
+			return;
+		}
+		if(isOctal && (c == '8' || c == '9')) {
+			isStopped = true;
+			return;
+		}
+		int digit = SrpnCharacterClass.digitValue(c);
+		switch(mode) {
+		case INT64:
+			addLong(digit);
+			break;
+		case BIG_INTEGER:
+			addBig(digit);
+			break;
+		default:
+			if(isOctal) {
+				addOctal(c, digit);
+			}
+			else if(digitCount <= 10) {
+				value = value * 10 + digit;
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Method used to finish reading the operand, and compile a push of its value.
+	 *
+	 * @param program
+	 * 			the program the push is added to
+	 */
+	public void finish(SrpnProgram program) {
+		switch(mode) {
+		case INT64:
+			program.addLong(isSaturated ? (isNegative ? Long.MIN_VALUE : Long.MAX_VALUE) : (isNegative ? -value : value));
+			break;
+		case BIG_INTEGER:
+			int shift = isOctal ? 3 * chunkDigits : 0;
+			BigInteger result = isOctal ? bigValue.shiftLeft(shift) : bigValue.multiply(BigInteger.TEN.pow(chunkDigits));
+			result = result.add(BigInteger.valueOf(chunk));
+			program.addBig(isNegative ? result.negate() : result);
+			break;
+		default:
+			int intValue = isOctal ? octalValue() : decimalValue();
+			program.add(SrpnProgram.PUSH, intValue);
+			// As in 'SrpnCompiler', a literal at the end of the integer range is marked if its exact value was not
+			if((intValue == 2147483647 || intValue == -2147483648)
+					&& (isSaturated || (!isOctal && digitCount > 10) || intValue != (isNegative ? -value : value))) {
+				program.saturatedLiterals++;
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Method which calculates the 'int32' value of a decimal operand. See 'SrpnCompiler.decimalValue' method.
+	 */
+	private int decimalValue() {
+		if(digitCount + (isNegative ? 1 : 0) > 10) {
+			return isNegative ? -2147483648 : 2147483647;
+		}
+		long decimalValue = isNegative ? -value : value;
+		return (int) Math.max(-2147483648L, Math.min(2147483647L, decimalValue));
+	}
+
+	/**
+	 * Method which reads the next digit of an octal operand in 'int32' mode. See 'SrpnCompiler.octalValue' method.
+	 */
+	private void addOctal(char c, int digit) {
+		// Leading zeros are skipped, unless the octal is negative
+		if(significantDigitCount == 0 && c == '0' && !isNegative) {
+			return;
+		}
+		if(significantDigitCount++ == 0) {
+			mostSignificantDigit = digit;
+		}
+		// Once the value is past the integer range it is saturated, which is kept so metrics can count it
+		if(value < 2147483647) {
+			long shifted = (value << 3) + digit;
+			isSaturated = shifted > 2147483647;
+			value = Math.min(shifted, 2147483647);
+		}
+		else {
+			isSaturated = true;
+		}
+	}
+
+	/**
+	 * Method which calculates the 'int32' value of an octal operand. See 'SrpnCompiler.octalValue' method.
+	 */
+	private int octalValue() {
+		long decimalValue = value;
+		if(significantDigitCount > 342) {
+			decimalValue = (mostSignificantDigit == 0) ? 0 : 2147483647;
+		}
+		if(isNegative) {
+			decimalValue = -decimalValue;
+		}
+		if(decimalValue <= -1000000000) {
+			return -2147483648;
+		}
+		return (int) decimalValue;
+	}
+
+	/**
+	 * Method which reads the next digit in 'int64' mode, until the value saturates.
+	 * See 'SrpnCompiler.decimalLongValue' and 'SrpnCompiler.octalLongValue' methods.
+	 */
+	private void addLong(int digit) {
+		if(isSaturated) {
+			return;
+		}
+		if(isOctal) {
+			if(value > (Long.MAX_VALUE - digit) >> 3) {
+				isSaturated = true;
+				return;
+			}
+			value = (value << 3) + digit;
+		}
+		else {
+			if(value > (Long.MAX_VALUE - digit) / 10) {
+				isSaturated = true;
+				return;
+			}
+			value = value * 10 + digit;
+		}
+	}
+
+	/**
+	 * Method which reads the next digit in 'bigint' mode, gathering digits into a long so the big integer
+	 * is only shifted up once for every chunk of them. See 'SrpnCompiler.decimalBigValue' method.
+	 */
+	private void addBig(int digit) {
+		chunk = isOctal ? (chunk << 3) + digit : chunk * 10 + digit;
+		if(++chunkDigits == (isOctal ? OCTAL_CHUNK : DECIMAL_CHUNK)) {
+			if(isOctal) {
+				bigValue = bigValue.shiftLeft(3 * OCTAL_CHUNK);
+			}
+			else {
+				bigValue = bigValue.multiply(BigInteger.TEN.pow(DECIMAL_CHUNK));
+			}
+			bigValue = bigValue.add(BigInteger.valueOf(chunk));
+			chunk = 0;
+			chunkDigits = 0;
+		}
+	}
+}
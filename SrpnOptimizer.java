@@ -0,0 +1,134 @@
+/**
+ * The SrpnOptimizer class for SRPN, which folds the parts of a compiled line that only work on literals, e.g. '3 4 + 5 *',
+ * into a single push of their result, so that executing the line does not push, pop and calculate each of them again.
+ *
+ * Only pushes and operations which cannot fail are folded; a division by 0, a negative power, or anything which prints
+ * or uses the 'r' command ends the folding. A folded value is followed by the instructions it replaces, which are
+ * executed instead if the stack is too full for them to run without a stack overflow, so overflow errors are still
+ * printed as before.
+ *
+ * A result which saturates also ends the folding, so that metrics still see every saturation when the line is executed.
+ * See 'SrpnMeteredProcessInput' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProgram.java
+ */
+
+public class SrpnOptimizer {
+
+	/**
+	 * Method used to create a copy of a program in which literal-only calculations are folded.
+	 * Executing the copy has exactly the same effect as executing the program.
+	 *
+	 * @param program
+	 * 		the program to be optimised, which is not changed
+	 *
+	 * @return the optimised program
+	 */
+	public static SrpnProgram optimize(SrpnProgram program){
+		int[] code = program.code;
+		int length = program.length;
+		SrpnProgram optimized = new SrpnProgram(length + 4);
+
+		/* The values known so far, as they would be on the stack. Each one is produced by the instructions from its start
+		 * up to the start of the next, and the stack grows by at most its growth while they are executed.
+		 */
+		int maxValues = length / 2 + 1;
+		int[] values = new int[maxValues];
+		int[] starts = new int[maxValues];
+		int[] growths = new int[maxValues];
+		int valueCount = 0;
+
+		int pc = 0;
+		while(pc < length){
+			int opcode = code[pc];
+			if(opcode == SrpnProgram.PUSH){
+				values[valueCount] = code[pc + 1];
+				starts[valueCount] = pc;
+				growths[valueCount] = 1;
+				valueCount++;
+				pc += 2;
+			}
+			else if(isOperation(opcode) && valueCount >= 2 && isFoldable(Operator.forOpcode(opcode), values[valueCount - 1], values[valueCount - 2])){
+				// Both operands are known, and the operation would not print an error or saturate, so the result replaces them
+				values[valueCount - 2] = Operator.forOpcode(opcode).apply(values[valueCount - 1], values[valueCount - 2]);
+				growths[valueCount - 2] = Math.max(growths[valueCount - 2], 1 + growths[valueCount - 1]);
+				valueCount--;
+				pc++;
+			}
+			else{
+				addValues(code, pc, values, starts, growths, valueCount, optimized);
+				valueCount = 0;
+				// Anything else is kept as it is, with a folded value's replaced instructions kept alongside it
+				int instructionLength = 1 + SrpnProgram.operandCount(opcode);
+				if(opcode == SrpnProgram.CONST){
+					instructionLength += code[pc + 3];
+				}
+				addInstructions(code, pc, pc + instructionLength, optimized);
+				pc += instructionLength;
+			}
+		}
+		addValues(code, length, values, starts, growths, valueCount, optimized);
+		// Wider literals are left as they are, so still refer to the same constants
+		optimized.constants = program.constants;
+		optimized.constantCount = program.constantCount;
+		optimized.saturatedLiterals = program.saturatedLiterals;
+		return optimized.trimmedCopy();
+	}
+
+	/**
+	 * Method which adds the known values to the optimised program. Values which were calculated are added as a 'CONST',
+	 * followed by the instructions they replace, and values which were only pushed are added as the push.
+	 *
+	 * @param code
+	 * 		the instructions of the program being optimised
+	 * @param end
+	 * 		the index after the last instruction which produced the values
+	 * @param values
+	 * 		the known values. See 'optimize' method.
+	 * @param starts
+	 * 		the index of the first instruction which produced each value
+	 * @param growths
+	 * 		how far the stack grows while each value is produced
+	 * @param valueCount
+	 * 		the amount of known values
+	 * @param optimized
+	 * 		the program the values are added to
+	 */
+	private static void addValues(int[] code, int end, int[] values, int[] starts, int[] growths, int valueCount, SrpnProgram optimized){
+		for(int i = 0; i < valueCount; i++){
+			int start = starts[i];
+			int valueEnd = (i + 1 < valueCount) ? starts[i + 1] : end;
+			// A single push is already as short as it can be
+			if(valueEnd - start > 2){
+				optimized.addConst(values[i], growths[i], valueEnd - start);
+			}
+			addInstructions(code, start, valueEnd, optimized);
+		}
+	}
+
+	/**
+	 * Method which copies instructions and their operands to the optimised program unchanged.
+	 */
+	private static void addInstructions(int[] code, int start, int end, SrpnProgram optimized){
+		for(int i = start; i < end; i++){
+			optimized.add(code[i]);
+		}
+	}
+
+	/**
+	 * Method which checks if an operation can be folded, as it is neither undefined for its operands nor saturates.
+	 */
+	private static boolean isFoldable(Operator operator, int operandOne, int operandTwo){
+		return !operator.isUndefined(operandOne) && !operator.saturates(operandOne, operandTwo);
+	}
+
+	/**
+	 * Method which checks if an instruction is one of the operations.
+	 */
+	private static boolean isOperation(int opcode){
+		return opcode >= SrpnProgram.ADD && opcode <= SrpnProgram.POW;
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * The SrpnOutput interface for SRPN, which receives everything the calculator prints.
+ * Results (printed by '=' and 'd') and errors are kept on separate channels, so that each calculator
+ * can be given its own output rather than every calculator sharing 'System.out' and 'System.err'.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnPrintOutput.java
+ */
+
+import java.math.BigInteger;
+
+public interface SrpnOutput {
+
+	/**
+	 * Method used to output a result, i.e. a value printed by the '=' or 'd' commands.
+	 *
+	 * @param value
+	 * 		the value to be output
+	 */
+	void printResult(int value);
+
+	/**
+	 * Method used to output a result in 'int64' mode. See 'SrpnNumericMode' class.
+	 * Outputs which only take integer results, such as the one used by 'SrpnEngine', accept it if it fits in an integer.
+	 *
+	 * @param value
+	 * 		the value to be output
+	 * @throws UnsupportedOperationException
+	 * 		if this output only takes integer results, and the value does not fit in one
+	 */
+	default void printResult(long value) {
+		if(value != (int) value) {
+			throw new UnsupportedOperationException("This output only takes 32-bit results.");
+		}
+		printResult((int) value);
+	}
+
+	/**
+	 * Method used to output a result in 'bigint' mode. See 'SrpnNumericMode' class.
+	 *
+	 * @param value
+	 * 		the value to be output
+	 * @throws UnsupportedOperationException
+	 * 		if this output only takes integer results, and the value does not fit in one
+	 */
+	default void printResult(BigInteger value) {
+		if(value.bitLength() > 31) {
+			throw new UnsupportedOperationException("This output only takes 32-bit results.");
+		}
+		printResult(value.intValue());
+	}
+
+	/**
+	 * Method used to output an error message, e.g. "Stack underflow."
+	 *
+	 * @param message
+	 * 		the error message to be output
+	 */
+	void printError(String message);
+}
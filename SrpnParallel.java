@@ -0,0 +1,335 @@
+/**
+ * The parallel mode for SRPN, which evaluates many independent calculator sessions at once across a fork-join pool.
+ * Each session has its own calculator, so its own stack and 'r' cursor, and its output is collected
+ * and written in session order, exactly as if each session had been run on its own one after the other.
+ *
+ * Usage: java SRPN --parallel [--threads N] [--mmap] [--cache-size LINES] [--mode MODE] [--seed SEED] [--metrics] [--profile] FILE...
+ * Each file is a session.
+ *
+ * Usage: java SRPN --parallel [--threads N] [--cache-size LINES] [--mode MODE] [--seed SEED] [--metrics] [--profile] --multiplexed [FILE]
+ * Each line of the file (or standard input) is a session id, a space, and then the line for that session.
+ * Sessions are output in the order they first appear. The input is read as it is evaluated, handing each session
+ * its lines in chunks, and reading waits for the sessions to catch up once too many lines are waiting to be evaluated.
+ *
+ * Each session has its own cache of compiled lines, and every session uses the same numeric mode, as in batch mode.
+ * See 'SrpnBatch' class. With '--seed', each session's 'r' command gives its own seeded values, split from the seed
+ * in session order, so the same seed always gives every session the same values.
+ * With '--metrics', the work of every session is counted together. See 'SrpnMetrics' class.
+ * With '--profile', the lines of every session are timed together. See 'SrpnProfiler' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBatch.java
+ */
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+public class SrpnParallel {
+	// The amount of lines a session is handed at once from a multiplexed input
+	static final int CHUNK_LINES = 256;
+	// The amount of lines of a multiplexed input which can be read but not yet evaluated
+	static final int MAX_PENDING_LINES = 65536;
+
+	/**
+	 * A single calculator session, and the output it produced.
+	 */
+	static class Session implements Runnable {
+		// The file holding the session's input, or null if its lines are read from a multiplexed input
+		String file;
+		// The lines read for the session which have not yet been handed to it. See 'demultiplex' method.
+		List<String> chunk = new ArrayList<String>();
+		boolean memoryMapped = false;
+		// The amount of lines whose programs are cached, or 0 for none
+		int cacheSize = SrpnProgramCache.DEFAULT_CAPACITY;
+		SrpnNumericMode mode = SrpnNumericMode.INT32;
+		// The source for the 'r' command, or null for the values of 'rand()'
+		SrpnRandomSource randomSource = null;
+		// The metrics shared by every session, or null for none
+		SrpnMetrics metrics = null;
+		// The profiler shared by every session, or null for none
+		SrpnProfiler profiler = null;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+		// The calculator, created when the session is first evaluated, and whether it has stopped on an error
+		private SrpnBatch batch;
+		private PrintStream sessionErr;
+		private boolean stopped = false;
+		// The evaluation of everything handed to the session so far, which later lines are evaluated after
+		CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+		/**
+		 * Method which evaluates the session's file, with its results and errors collected into its own output.
+		 */
+		public void run() {
+			evaluate(Collections.<String>emptyList());
+		}
+
+		/**
+		 * Method which evaluates the session's file on the given pool.
+		 */
+		void submit(Executor pool) {
+			tail = CompletableFuture.runAsync(this, pool);
+		}
+
+		/**
+		 * Method which hands the lines read for the session to it, to be evaluated on the given pool
+		 * after the lines handed to it before.
+		 *
+		 * @param pool
+		 * 			the pool the lines are evaluated on
+		 * @param pendingLines
+		 * 			the permits of the lines waiting to be evaluated, which are released once they have been
+		 */
+		void submitChunk(Executor pool, Semaphore pendingLines) {
+			final List<String> lines = chunk;
+			chunk = new ArrayList<String>();
+			tail = tail.thenRunAsync(() -> {
+				evaluate(lines);
+				pendingLines.release(lines.size());
+			}, pool);
+		}
+
+		/**
+		 * Method which evaluates the session's file, if it has one, and then the given lines.
+		 *
+		 * @param lines
+		 * 			the lines to be evaluated
+		 */
+		private void evaluate(List<String> lines) {
+			if(batch == null) {
+				sessionErr = new PrintStream(err, true);
+				batch = new SrpnBatch(new PrintStream(out, true), sessionErr, 0, mode, metrics, profiler);
+				if(memoryMapped) {
+					batch.setMappedInput(new SrpnMappedInput());
+				}
+				if(cacheSize > 0) {
+					batch.srpn.setProgramCache(new SrpnProgramCache(cacheSize, mode));
+				}
+				if(randomSource != null) {
+					batch.srpn.setRandomSource(randomSource);
+				}
+			}
+			if(stopped) {
+				return;
+			}
+			try {
+				if(file != null) {
+					batch.processFile(file);
+				}
+				for(String line : lines) {
+					batch.processLine(line);
+				}
+			} catch(IOException e) {
+				sessionErr.println(e.getMessage());
+				stopped = true;
+			} catch(RuntimeException e) {
+				// The session stops, as it would have if it had been run on its own, but the others carry on
+				sessionErr.println(e);
+				stopped = true;
+			}
+		}
+	}
+
+	/**
+	 * Method which runs parallel mode with the command-line arguments that followed '--parallel'.
+	 *
+	 * @param args
+	 * 			the options, followed by the files to be processed
+	 */
+	public static void run(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean memoryMapped = false;
+		boolean multiplexed = false;
+		int cacheSize = SrpnProgramCache.DEFAULT_CAPACITY;
+		SrpnNumericMode mode = SrpnNumericMode.INT32;
+		Long seed = null;
+		boolean metered = false;
+		boolean profiled = false;
+		List<String> files = new ArrayList<String>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--mmap")) {
+				memoryMapped = true;
+			}
+			else if(args[i].equals("--multiplexed")) {
+				multiplexed = true;
+			}
+			else if(args[i].equals("--cache-size") && i + 1 < args.length) {
+				cacheSize = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--mode") && i + 1 < args.length) {
+				mode = SRPN.parseMode(args[++i]);
+			}
+			else if(args[i].equals("--seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			}
+			else if(args[i].equals("--metrics")) {
+				metered = true;
+			}
+			else if(args[i].equals("--profile")) {
+				profiled = true;
+			}
+			else {
+				files.add(args[i]);
+			}
+		}
+		SRPN.checkMetrics(mode, metered);
+
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), SrpnBatch.BUFFER_SIZE), false);
+		PrintStream err = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), SrpnBatch.BUFFER_SIZE), false);
+
+		SrpnSplittableRandom seededRandom = (seed == null) ? null : new SrpnSplittableRandom(seed);
+		SrpnMetrics metrics = metered ? SrpnMetrics.enable() : null;
+		SrpnProfiler profiler = profiled ? SrpnProfiler.enable() : null;
+		final int sessionCacheSize = cacheSize;
+		final SrpnNumericMode sessionMode = mode;
+		// Sessions are configured in the order they are created, so each is given the same split of the seed every time
+		Consumer<Session> configure = session -> {
+			session.cacheSize = sessionCacheSize;
+			session.mode = sessionMode;
+			session.metrics = metrics;
+			session.profiler = profiler;
+			if(seededRandom != null) {
+				session.randomSource = seededRandom.split();
+			}
+		};
+
+		int exitCode = 0;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<Session> sessions = new ArrayList<Session>();
+			if(multiplexed) {
+				sessions.addAll(demultiplex(files.isEmpty() ? "-" : files.get(0), configure, pool));
+			}
+			else {
+				for(String file : files) {
+					Session session = new Session();
+					session.file = file;
+					session.memoryMapped = memoryMapped;
+					configure.accept(session);
+					sessions.add(session);
+				}
+				for(Session session : sessions) {
+					session.submit(pool);
+				}
+			}
+			write(sessions, out, err);
+		} catch(IOException e) {
+			err.println(e.getMessage());
+			exitCode = 1;
+		} finally {
+			pool.shutdown();
+			out.flush();
+			err.flush();
+		}
+		System.exit(exitCode);
+	}
+
+	/**
+	 * Method which splits a multiplexed input into its sessions, handing each session its lines to be evaluated as they are read.
+	 *
+	 * @param file
+	 * 			the path of the multiplexed input, or '-' for standard input
+	 * @param configure
+	 * 			sets up each session as it is created, before any of its lines are evaluated
+	 * @param pool
+	 * 			the pool the sessions are evaluated on
+	 *
+	 * @return the sessions, in the order they first appear
+	 */
+	static List<Session> demultiplex(String file, Consumer<Session> configure, Executor pool) throws IOException {
+		Map<String, Session> sessions = new LinkedHashMap<String, Session>();
+		// The sessions which may have lines that have been read but not yet handed to them
+		List<Session> unsubmitted = new ArrayList<Session>();
+		Semaphore pendingLines = new Semaphore(MAX_PENDING_LINES);
+		int readableLines = 0;
+		InputStream input = file.equals("-") ? System.in : new FileInputStream(file);
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(input), SrpnBatch.BUFFER_SIZE)) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				int separator = line.indexOf(' ');
+				String sessionId = (separator < 0) ? line : line.substring(0, separator);
+				String command = (separator < 0) ? "" : line.substring(separator + 1);
+				Session session = sessions.get(sessionId);
+				if(session == null) {
+					session = new Session();
+					configure.accept(session);
+					sessions.put(sessionId, session);
+				}
+				if(readableLines == 0) {
+					// Lines are read a quarter of the limit at a time, so the sessions are not handed a line or two at once
+					if(!pendingLines.tryAcquire(MAX_PENDING_LINES / 4)) {
+						// Every line read is handed out before waiting, so the sessions always have lines to catch up with
+						submitChunks(unsubmitted, pool, pendingLines);
+						pendingLines.acquireUninterruptibly(MAX_PENDING_LINES / 4);
+					}
+					readableLines = MAX_PENDING_LINES / 4;
+				}
+				readableLines--;
+				if(session.chunk.isEmpty()) {
+					unsubmitted.add(session);
+				}
+				session.chunk.add(command);
+				if(session.chunk.size() == CHUNK_LINES) {
+					session.submitChunk(pool, pendingLines);
+				}
+			}
+		}
+		submitChunks(unsubmitted, pool, pendingLines);
+		return new ArrayList<Session>(sessions.values());
+	}
+
+	/**
+	 * Method which hands each of the given sessions the lines read for it, and empties the list.
+	 */
+	private static void submitChunks(List<Session> unsubmitted, Executor pool, Semaphore pendingLines) {
+		for(Session session : unsubmitted) {
+			// A session is listed again each time it is given lines after its chunk was handed out
+			if(!session.chunk.isEmpty()) {
+				session.submitChunk(pool, pendingLines);
+			}
+		}
+		unsubmitted.clear();
+	}
+
+	/**
+	 * Method which writes out each session's output in order, as soon as it and every session before it has finished.
+	 *
+	 * @param sessions
+	 * 			the sessions, which have all been handed everything they are to evaluate
+	 * @param out
+	 * 			the stream results are written to
+	 * @param err
+	 * 			the stream errors are written to
+	 */
+	static void write(List<Session> sessions, PrintStream out, PrintStream err) {
+		try {
+			for(Session session : sessions) {
+				session.tail.join();
+				session.out.writeTo(out);
+				session.err.writeTo(err);
+				// Frees the output, as it has been written
+				session.out = null;
+				session.err = null;
+			}
+		} catch(IOException e) {
+			// Cannot happen, as PrintStream never throws an IOException
+			throw new UncheckedIOException(e);
+		}
+	}
+}
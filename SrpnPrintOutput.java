@@ -0,0 +1,53 @@
+/**
+ * The SrpnPrintOutput class for SRPN, which prints results and errors to a pair of print streams,
+ * one value or message per line. Interactive mode prints results to 'System.out' and errors to 'System.err'.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnOutput.java
+ */
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+
+public class SrpnPrintOutput implements SrpnOutput {
+	private final PrintStream out;
+	private final PrintStream err;
+
+	/**
+	 * Constructor which prints results to 'System.out' and errors to 'System.err'.
+	 */
+	public SrpnPrintOutput() {
+		this(System.out, System.err);
+	}
+
+	/**
+	 * Constructor which takes the streams results and errors are printed to.
+	 *
+	 * @param out
+	 * 		the stream results are printed to
+	 * @param err
+	 * 		the stream errors are printed to
+	 */
+	public SrpnPrintOutput(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	public void printResult(int value) {
+		out.println(value);
+	}
+
+	public void printResult(long value) {
+		out.println(value);
+	}
+
+	public void printResult(BigInteger value) {
+		out.println(value);
+	}
+
+	public void printError(String message) {
+		err.println(message);
+	}
+}
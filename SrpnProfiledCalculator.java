@@ -0,0 +1,148 @@
+/**
+ * The SrpnProfiledCalculator class for SRPN, which is the calculator used when profiling is turned on with '--profile'.
+ * It wraps the calculator for any numeric mode, and times each line it processes, along with every result and error
+ * it prints. Lines are compiled here, or by the program cache, with the profiler passed to 'SrpnCompiler' to time them.
+ * See 'SrpnProfiler' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProfiler.java
+ */
+
+import java.math.BigInteger;
+
+public class SrpnProfiledCalculator implements SrpnCalculator {
+	private final SrpnCalculator srpn;
+	private final SrpnProfiler profiler;
+	private final SrpnNumericMode mode;
+
+	// Holds each line as it is compiled, and keeps the compiled programs of recent lines, or null
+	private final SrpnProgram lineProgram = new SrpnProgram();
+	private SrpnProgramCache programCache = null;
+
+	// The time spent executing the earlier parts of a long line. See 'SrpnStreamInput' class.
+	private long partNanos = 0;
+
+	/**
+	 * Constructor which creates the calculator being profiled.
+	 *
+	 * @param output
+	 * 			the output for the calculator's results and errors
+	 * @param mode
+	 * 			the numeric mode of the calculator
+	 * @param metrics
+	 * 			the metrics the calculator's work is counted in, or null for none
+	 * @param profiler
+	 * 			the profiler the calculator's lines are timed by
+	 */
+	public SrpnProfiledCalculator(SrpnOutput output, SrpnNumericMode mode, SrpnMetrics metrics, SrpnProfiler profiler) {
+		this.profiler = profiler;
+		this.mode = mode;
+		srpn = mode.createCalculator(new TimedOutput(output, profiler), metrics);
+	}
+
+	public void processCommand(CharSequence s, int start, int end) {
+		SrpnProfiler.Recorder recorder = profiler.recorder();
+		SrpnLineEvent event = new SrpnLineEvent();
+		event.begin();
+		// The earlier parts of a long line were compiled before it reached here
+		long partCompileNanos = recorder.compileNanos;
+		long lineStart = System.nanoTime();
+		try {
+			SrpnProgram program;
+			if(programCache != null) {
+				program = programCache.get(s, start, end);
+			}
+			else {
+				lineProgram.clear();
+				compile(s, start, end, lineProgram);
+				program = lineProgram;
+			}
+			srpn.processLine(program);
+		} catch(RuntimeException e) {
+			recorder.clear();
+			partNanos = 0;
+			throw e;
+		}
+		long lineNanos = System.nanoTime() - lineStart + partNanos + partCompileNanos;
+		event.end();
+		recorder.recordLine(lineNanos, event, end - start);
+		partNanos = 0;
+	}
+
+	public void compile(CharSequence s, int start, int end, SrpnProgram program) {
+		SrpnCompiler.compile(s, start, end, program, mode, profiler);
+	}
+
+	public void processLine(SrpnProgram program) {
+		srpn.processLine(program);
+	}
+
+	public void execute(SrpnProgram program) {
+		long partStart = System.nanoTime();
+		srpn.execute(program);
+		partNanos += System.nanoTime() - partStart;
+	}
+
+	public void setProgramCache(SrpnProgramCache cache) {
+		if(cache != null) {
+			cache.setProfiler(profiler);
+		}
+		programCache = cache;
+		srpn.setProgramCache(cache);
+	}
+
+	public void setRandomSource(SrpnRandomSource source) {
+		srpn.setRandomSource(source);
+	}
+
+	public void reset() {
+		srpn.reset();
+	}
+
+	public SrpnSnapshot snapshot() {
+		return srpn.snapshot();
+	}
+
+	public void restore(SrpnSnapshot snapshot) {
+		srpn.restore(snapshot);
+	}
+
+	/**
+	 * An output which times each result and error it passes on.
+	 */
+	private static class TimedOutput implements SrpnOutput {
+		private final SrpnOutput output;
+		private final SrpnProfiler profiler;
+
+		TimedOutput(SrpnOutput output, SrpnProfiler profiler) {
+			this.output = output;
+			this.profiler = profiler;
+		}
+
+		public void printResult(int value) {
+			long start = System.nanoTime();
+			output.printResult(value);
+			profiler.recorder().outputNanos += System.nanoTime() - start;
+		}
+
+		public void printResult(long value) {
+			long start = System.nanoTime();
+			output.printResult(value);
+			profiler.recorder().outputNanos += System.nanoTime() - start;
+		}
+
+		public void printResult(BigInteger value) {
+			long start = System.nanoTime();
+			output.printResult(value);
+			profiler.recorder().outputNanos += System.nanoTime() - start;
+		}
+
+		public void printError(String message) {
+			long start = System.nanoTime();
+			output.printError(message);
+			profiler.recorder().outputNanos += System.nanoTime() - start;
+		}
+	}
+}
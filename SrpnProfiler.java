@@ -0,0 +1,165 @@
+/**
+ * The SrpnProfiler class for SRPN, which times each phase of every line processed when profiling is turned on
+ * with '--profile', and prints the percentiles of each phase's latency when the program exits.
+ *
+ * The phases of a line are:
+ * tokenize, the time spent compiling it apart from literal conversion, only for lines which were compiled rather than cached,
+ * literal conversion, the time spent working out the values of its operands, again only for lines which were compiled,
+ * operation, the time spent executing it apart from output,
+ * output, the time spent printing its results and errors,
+ * and line, the whole time spent processing it.
+ *
+ * Each thread records into its own histograms, so sessions on many threads do not contend. See 'SrpnLatencyHistogram' class.
+ * Each line is also recorded as a JFR event when a flight recording is running. See 'SrpnLineEvent' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProfiledCalculator.java
+ */
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SrpnProfiler {
+	// The phases each line is split into, and their names in the report
+	static final int TOKENIZE = 0;
+	static final int LITERAL = 1;
+	static final int OPERATION = 2;
+	static final int OUTPUT = 3;
+	static final int LINE = 4;
+	private static final String[] PHASE_NAMES = {"tokenize", "literal conversion", "operation", "output", "line"};
+
+	// The recorder of each thread, and every recorder created so far, so they can be added together when reported
+	private final ThreadLocal<Recorder> recorders = ThreadLocal.withInitial(this::newRecorder);
+	private final List<Recorder> allRecorders = new ArrayList<Recorder>();
+
+	/**
+	 * The histograms of a single thread, and the times of the line it is currently processing.
+	 */
+	static class Recorder {
+		final SrpnLatencyHistogram[] histograms = new SrpnLatencyHistogram[PHASE_NAMES.length];
+
+		// The time spent on each phase of the current line so far. See 'SrpnCompiler' and 'SrpnProfiledCalculator' classes.
+		long compileNanos = 0;
+		long literalNanos = 0;
+		long outputNanos = 0;
+
+		Recorder() {
+			for(int phase = 0; phase < histograms.length; phase++) {
+				histograms[phase] = new SrpnLatencyHistogram();
+			}
+		}
+
+		/**
+		 * Method used to record the phases of a line, once the whole line has been processed, and start timing the next.
+		 *
+		 * @param lineNanos
+		 * 		the whole time spent processing the line
+		 * @param event
+		 * 		the line's JFR event, which is committed if it is being recorded
+		 * @param length
+		 * 		the amount of characters in the line
+		 */
+		void recordLine(long lineNanos, SrpnLineEvent event, int length) {
+			long tokenizeNanos = compileNanos - literalNanos;
+			long operationNanos = lineNanos - compileNanos - outputNanos;
+			if(compileNanos > 0) {
+				histograms[TOKENIZE].record(tokenizeNanos);
+				histograms[LITERAL].record(literalNanos);
+			}
+			histograms[OPERATION].record(operationNanos);
+			histograms[OUTPUT].record(outputNanos);
+			histograms[LINE].record(lineNanos);
+
+			if(event.shouldCommit()) {
+				event.length = length;
+				event.tokenizeTime = tokenizeNanos;
+				event.literalTime = literalNanos;
+				event.operationTime = operationNanos;
+				event.outputTime = outputNanos;
+				event.commit();
+			}
+			clear();
+		}
+
+		/**
+		 * Method used to discard the times of the current line, e.g. if it could not be processed.
+		 */
+		void clear() {
+			compileNanos = 0;
+			literalNanos = 0;
+			outputNanos = 0;
+		}
+	}
+
+	/**
+	 * Method used to turn profiling on, with the report printed to standard error on exit.
+	 *
+	 * @return the profiler
+	 */
+	public static SrpnProfiler enable() {
+		SrpnProfiler profiler = new SrpnProfiler();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			profiler.print(System.err);
+			System.err.flush();
+		}));
+		return profiler;
+	}
+
+	/**
+	 * Method used to find the recorder of the current thread.
+	 *
+	 * @return the recorder
+	 */
+	Recorder recorder() {
+		return recorders.get();
+	}
+
+	/**
+	 * Method which creates the recorder for a thread, and keeps it so it is included in the report.
+	 */
+	private Recorder newRecorder() {
+		Recorder recorder = new Recorder();
+		synchronized(allRecorders) {
+			allRecorders.add(recorder);
+		}
+		return recorder;
+	}
+
+	/**
+	 * Method used to add together the histograms of every thread, for one phase.
+	 *
+	 * @param phase
+	 * 		the phase, e.g. 'TOKENIZE'
+	 *
+	 * @return the histogram of the phase across every thread
+	 */
+	public SrpnLatencyHistogram getHistogram(int phase) {
+		SrpnLatencyHistogram histogram = new SrpnLatencyHistogram();
+		synchronized(allRecorders) {
+			for(Recorder recorder : allRecorders) {
+				histogram.add(recorder.histograms[phase]);
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Method used to print the count, mean, percentiles and maximum latency of each phase, in nanoseconds.
+	 *
+	 * @param out
+	 * 		the stream the report is printed to
+	 */
+	public void print(PrintStream out) {
+		out.println("SRPN profile (nanoseconds per line):");
+		out.println(String.format("  %-20s %12s %12s %12s %12s %12s %12s %12s", "phase", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+		for(int phase = 0; phase < PHASE_NAMES.length; phase++) {
+			SrpnLatencyHistogram histogram = getHistogram(phase);
+			out.println(String.format("  %-20s %12d %12.0f %12d %12d %12d %12d %12d", PHASE_NAMES[phase], histogram.getTotalCount(),
+				histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+				histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax()));
+		}
+	}
+}
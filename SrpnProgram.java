@@ -0,0 +1,230 @@
+/**
+ * The SrpnProgram class for SRPN, which holds a line of input compiled into a compact array of instructions.
+ * Each instruction is an opcode, which for 'PUSH' and 'UNKNOWN' is followed by its operand,
+ * and for 'CONST' by its three operands.
+ * Literals which are wider than an integer are pushed by 'PUSH_LONG' or 'PUSH_BIG', depending on the numeric mode
+ * the line was compiled for. See 'SrpnNumericMode' class.
+ * Literals are already converted and saturated, so a program can be executed many times without re-reading the line.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnCompiler.java
+ */
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+public class SrpnProgram {
+	// Pushes the operand which follows it
+	static final int PUSH = 0;
+	static final int ADD = 1;
+	static final int SUB = 2;
+	static final int MUL = 3;
+	static final int DIV = 4;
+	static final int MOD = 5;
+	static final int POW = 6;
+	// The '=' command
+	static final int PRINT_TOP = 7;
+	// The 'd' command
+	static final int DUMP = 8;
+	// The 'r' command
+	static final int RAND = 9;
+	// Reports the unrecognised character which follows it
+	static final int UNKNOWN = 10;
+	/* Pushes a folded value, followed by the value, how far the folded instructions would grow the stack,
+	 * and how many ints of folded instructions follow. See 'SrpnOptimizer' class.
+	 */
+	static final int CONST = 11;
+	// Pushes the long whose high and low halves follow it
+	static final int PUSH_LONG = 12;
+	// Pushes the constant whose index follows it
+	static final int PUSH_BIG = 13;
+
+	int[] code;
+	int length = 0;
+
+	// The literals pushed by 'PUSH_BIG', or null if there are none
+	BigInteger[] constants;
+	int constantCount = 0;
+
+	// The amount of 'int32' literals which were saturated when compiled, which metrics count each time the program is executed
+	int saturatedLiterals = 0;
+
+	/**
+	 * Constructor which creates an empty program.
+	 */
+	public SrpnProgram() {
+		this(32);
+	}
+
+	/**
+	 * Constructor which creates an empty program with room for the given amount of instructions and operands.
+	 *
+	 * @param capacity
+	 * 		the initial size of the code array
+	 */
+	SrpnProgram(int capacity) {
+		code = new int[Math.max(capacity, 2)];
+	}
+
+	/**
+	 * Method used to add an instruction which has no operand.
+	 *
+	 * @param opcode
+	 * 		the instruction to be added
+	 */
+	void add(int opcode) {
+		if(length == code.length) {
+			code = Arrays.copyOf(code, length * 2);
+		}
+		code[length++] = opcode;
+	}
+
+	/**
+	 * Method used to add an instruction followed by its operand.
+	 *
+	 * @param opcode
+	 * 		the instruction to be added
+	 * @param operand
+	 * 		the value pushed, or the character which was not recognised
+	 */
+	void add(int opcode, int operand) {
+		if(length + 2 > code.length) {
+			code = Arrays.copyOf(code, Math.max(length * 2, length + 2));
+		}
+		code[length++] = opcode;
+		code[length++] = operand;
+	}
+
+	/**
+	 * Method used to add a folded value, which is followed by the instructions it replaces.
+	 *
+	 * @param value
+	 * 		the value pushed
+	 * @param growth
+	 * 		the most the stack grows while the replaced instructions are executed
+	 * @param skip
+	 * 		the amount of ints taken up by the replaced instructions
+	 */
+	void addConst(int value, int growth, int skip) {
+		if(length + 4 > code.length) {
+			code = Arrays.copyOf(code, Math.max(length * 2, length + 4));
+		}
+		code[length++] = CONST;
+		code[length++] = value;
+		code[length++] = growth;
+		code[length++] = skip;
+	}
+
+	/**
+	 * Method used to add a push of a long literal.
+	 *
+	 * @param value
+	 * 		the value pushed
+	 */
+	void addLong(long value) {
+		add(PUSH_LONG, (int) (value >>> 32));
+		add((int) value);
+	}
+
+	/**
+	 * Method used to add a push of an arbitrary precision literal.
+	 *
+	 * @param value
+	 * 		the value pushed
+	 */
+	void addBig(BigInteger value) {
+		if(constants == null) {
+			constants = new BigInteger[4];
+		}
+		else if(constantCount == constants.length) {
+			constants = Arrays.copyOf(constants, constantCount * 2);
+		}
+		constants[constantCount] = value;
+		add(PUSH_BIG, constantCount++);
+	}
+
+	/**
+	 * Method which reads the long pushed by a 'PUSH_LONG' instruction.
+	 *
+	 * @param pc
+	 * 		the index of the instruction
+	 *
+	 * @return the value pushed
+	 */
+	long longOperand(int pc) {
+		return ((long) code[pc + 1] << 32) | (code[pc + 2] & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Method used to remove every instruction, so the program can be reused.
+	 */
+	void clear() {
+		length = 0;
+		if(constants != null) {
+			Arrays.fill(constants, 0, constantCount, null);
+		}
+		constantCount = 0;
+		saturatedLiterals = 0;
+	}
+
+	/**
+	 * Method used to copy the program into an array which is exactly as long as it needs to be, e.g. to be kept.
+	 *
+	 * @return a copy of the program
+	 */
+	public SrpnProgram trimmedCopy() {
+		SrpnProgram copy = new SrpnProgram(0);
+		copy.code = Arrays.copyOf(code, length);
+		copy.length = length;
+		if(constantCount > 0) {
+			copy.constants = Arrays.copyOf(constants, constantCount);
+			copy.constantCount = constantCount;
+		}
+		copy.saturatedLiterals = saturatedLiterals;
+		return copy;
+	}
+
+	/**
+	 * @return the amount of instructions and operands in the program
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Method which checks if an instruction is followed by an operand.
+	 *
+	 * @param opcode
+	 * 		the instruction to be checked
+	 *
+	 * @return whether or not the instruction has an operand
+	 */
+	static boolean hasOperand(int opcode) {
+		return operandCount(opcode) > 0;
+	}
+
+	/**
+	 * Method which finds how many operands follow an instruction.
+	 *
+	 * @param opcode
+	 * 		the instruction to be checked
+	 *
+	 * @return the amount of operands
+	 */
+	static int operandCount(int opcode) {
+		switch(opcode) {
+		case PUSH:
+		case UNKNOWN:
+		case PUSH_BIG:
+			return 1;
+		case PUSH_LONG:
+			return 2;
+		case CONST:
+			return 3;
+		default:
+			return 0;
+		}
+	}
+}
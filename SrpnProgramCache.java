@@ -0,0 +1,153 @@
+/**
+ * The SrpnProgramCache class for SRPN, which keeps the compiled programs of recently processed lines,
+ * so that a line which is seen again is executed without being compiled again.
+ * Only the compiled program is kept, never its results, as executing a line depends on the stack and the 'r' command.
+ * As kept programs are executed many times, they are optimised first. See 'SrpnOptimizer' class.
+ *
+ * The least recently used line is forgotten once the cache is full. A cache is not thread safe.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnProgram.java
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SrpnProgramCache {
+	// The default amount of lines which are kept
+	static final int DEFAULT_CAPACITY = 1024;
+	// Longer lines than this are not kept, as they are unlikely to be repeated and would use a lot of memory
+	static final int MAX_LINE_LENGTH = 4096;
+
+	private final int capacity;
+	// The numeric mode lines are compiled for. See 'SrpnNumericMode' class.
+	private final SrpnNumericMode mode;
+	private final Map<String, SrpnProgram> programs;
+	// Times the compiling of each line, or null. See 'SrpnProfiler' class.
+	private SrpnProfiler profiler = null;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * Constructor which creates a cache of the default size.
+	 */
+	public SrpnProgramCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor which creates a cache holding up to the given amount of lines.
+	 *
+	 * @param capacity
+	 * 		the maximum amount of lines kept
+	 */
+	public SrpnProgramCache(int capacity) {
+		this(capacity, SrpnNumericMode.INT32);
+	}
+
+	/**
+	 * Constructor which creates a cache holding up to the given amount of lines, compiled for the given numeric mode.
+	 *
+	 * @param capacity
+	 * 		the maximum amount of lines kept
+	 * @param mode
+	 * 		the numeric mode of the calculator the cache is used by
+	 */
+	public SrpnProgramCache(int capacity, SrpnNumericMode mode) {
+		this.mode = mode;
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be at least 1.");
+		}
+		this.capacity = capacity;
+		// Ordered by access, so the first entry is always the least recently used
+		programs = new LinkedHashMap<String, SrpnProgram>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<String, SrpnProgram> eldest) {
+				return size() > SrpnProgramCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Method used to find the compiled program for a line, compiling and keeping it if it is not already known.
+	 * Lines over 'MAX_LINE_LENGTH' are compiled but not kept, and are not counted as hits or misses.
+	 *
+	 * @param s
+	 * 		the input holding the line
+	 * @param start
+	 * 		the index of the first character of the line
+	 * @param end
+	 * 		the index after the last character of the line
+	 *
+	 * @return the compiled program, which must not be changed
+	 */
+	public SrpnProgram get(CharSequence s, int start, int end) {
+		if(end - start > MAX_LINE_LENGTH) {
+			SrpnProgram program = new SrpnProgram();
+			SrpnCompiler.compile(s, start, end, program, mode, profiler);
+			return program;
+		}
+
+		String line = (s instanceof String && start == 0 && end == s.length()) ? (String) s : s.subSequence(start, end).toString();
+		SrpnProgram program = programs.get(line);
+		if(program != null) {
+			hits++;
+			return program;
+		}
+		misses++;
+		program = new SrpnProgram();
+		SrpnCompiler.compile(line, 0, line.length(), program, mode, profiler);
+		program = SrpnOptimizer.optimize(program);
+		programs.put(line, program);
+		return program;
+	}
+
+	/**
+	 * Method used to time compiling the lines which are not found in the cache, when it is used by a profiled calculator.
+	 *
+	 * @param profiler
+	 * 		the profiler compiling is timed by, or null for none
+	 */
+	public void setProfiler(SrpnProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * @return the amount of times a line's program was found in the cache
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the amount of times a line had to be compiled
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the amount of lines currently kept
+	 */
+	public int size() {
+		return programs.size();
+	}
+
+	/**
+	 * @return the maximum amount of lines kept
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Method used to forget every line and reset the hit and miss counters.
+	 */
+	public void clear() {
+		programs.clear();
+		hits = 0;
+		misses = 0;
+	}
+}
@@ -0,0 +1,32 @@
+/**
+ * The SrpnRandomSource interface for SRPN, which gives the values pushed by the 'r' command.
+ * Each calculator has its own source, so sessions never share or disturb each other's values.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnGlibcRandom.java
+ */
+
+public interface SrpnRandomSource {
+
+	/**
+	 * Method used to find the next value for the 'r' command.
+	 *
+	 * @return the value, which is never negative
+	 */
+	int nextInt();
+
+	/**
+	 * Method used to return the source to its first value, as when the calculator is reset.
+	 */
+	void reset();
+
+	/**
+	 * Method used to copy the source at its current value, so a copy taken for a snapshot carries on from the same value.
+	 * See 'SrpnSnapshot' class.
+	 *
+	 * @return the copy, whose values are independent of this source's from now on
+	 */
+	SrpnRandomSource copy();
+}
@@ -0,0 +1,91 @@
+/**
+ * The SrpnResult class for SRPN, which holds everything that evaluating a program with 'SrpnEngine' produced,
+ * rather than printing it.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnEngine.java
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+public class SrpnResult {
+	private final int[] results;
+	private final int[] stack;
+	private final List<String> errors;
+	private final List<SrpnEvent> events;
+	private final String terminatingError;
+
+	/**
+	 * Constructor which takes the output of an evaluation.
+	 *
+	 * @param results
+	 * 		the values printed by '=' and 'd', in the order they were printed
+	 * @param stack
+	 * 		the contents of the stack after the evaluation, from the bottom of the stack to the top
+	 * @param errors
+	 * 		the error messages, in the order they were printed
+	 * @param events
+	 * 		the results and error messages together, in the order they were printed
+	 * @param terminatingError
+	 * 		the error which stopped the evaluation, which is also the last error message, or null if it ran to the end
+	 */
+	public SrpnResult(int[] results, int[] stack, List<String> errors, List<SrpnEvent> events, String terminatingError) {
+		this.results = results;
+		this.stack = stack;
+		this.errors = Collections.unmodifiableList(errors);
+		this.events = Collections.unmodifiableList(events);
+		this.terminatingError = terminatingError;
+	}
+
+	/**
+	 * @return the values printed by '=' and 'd', in the order they were printed
+	 */
+	public int[] getResults() {
+		return results.clone();
+	}
+
+	/**
+	 * @return the contents of the stack after the evaluation, from the bottom of the stack to the top
+	 */
+	public int[] getStack() {
+		return stack.clone();
+	}
+
+	/**
+	 * @return the error messages, e.g. "Stack underflow.", in the order they were printed
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the results and error messages together, in the order they were printed
+	 */
+	public List<SrpnEvent> getEvents() {
+		return events;
+	}
+
+	/**
+	 * @return the error which stopped the evaluation, e.g. '=' on an empty stack, or null if it ran to the end
+	 */
+	public String getTerminatingError() {
+		return terminatingError;
+	}
+
+	/**
+	 * @return whether or not the evaluation was stopped by an error before the end of the program
+	 */
+	public boolean isTerminated() {
+		return terminatingError != null;
+	}
+
+	/**
+	 * @return whether or not any errors were printed
+	 */
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+}
@@ -0,0 +1,666 @@
+/**
+ * The server mode for SRPN, which serves calculator sessions over TCP, so many calculations can share one running program.
+ * Each connection is a session with its own calculator, so its own stack and 'r' cursor, exactly as if it had been
+ * typed into its own program. Connections are shared between worker threads, each waiting on its own NIO selector.
+ *
+ * Usage: java SRPN --server [--host HOST] [--port PORT] [--threads N] [--max-connections N] [--session-buffer CHARS]
+ * 		[--max-pending-output BYTES] [--cache-size LINES] [--mode MODE] [--seed SEED] [--metrics] [--profile]
+ * 		[--journal FILE] [--journal-batch N] [--compact-size BYTES]
+ *
+ * The server listens on 127.0.0.1 port 7878 unless '--host' and '--port' are given, where a port of 0 picks a free one.
+ * Each line sent gets a response of the results and errors it printed, one per line, followed by an empty line.
+ * Clients may send many lines without waiting for their responses, which are written back in order,
+ * as many at once as are ready.
+ *
+ * A connection over the '--max-connections' limit (1024 by default) is sent "Too many connections." and closed.
+ * Each session holds at most '--session-buffer' characters of input (4096 by default), as longer lines are
+ * processed as they arrive. See 'SrpnStreamInput' class. Input stops being read from a client which does not read
+ * its responses once more than '--max-pending-output' bytes of them are waiting (1 MiB by default).
+ * The other options are the same as in batch mode. See 'SrpnBatch' class. With '--seed', each session's 'r' command
+ * gives its own seeded values, split from the seed in the order connections are accepted.
+ *
+ * A connection whose first line is "#session NAME" serves the session of that name, which is created if there is
+ * none, and carries on where it left off when a later connection names it again, even part way through a line.
+ * The line is not given to the session, and its response is an empty line. A named session is served over one
+ * connection at a time, and a connection naming one which is in use is sent "Session in use." and closed.
+ * Unlike other sessions, the last line of a named session is not processed when the connection closes without
+ * a line break after it, as the next connection may finish it.
+ * With '--journal', named sessions are durable: their input is appended to the journal file, and each response is
+ * only written once the input it answers is on disk, so the sessions are made again exactly as they were when
+ * the server is restarted with the same journal. Up to '--journal-batch' appends (256 by default) share each write
+ * to the disk, and the journal is compacted once it is larger than '--compact-size' bytes (64 MiB by default).
+ * If the journal cannot be written, connections to named sessions are sent "Journal failed:" and the reason in place of
+ * the responses which will never be durable, then closed. See 'SrpnJournal' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SRPN.java
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SrpnServer {
+	// The port listened on by default
+	static final int DEFAULT_PORT = 7878;
+	static final int DEFAULT_MAX_CONNECTIONS = 1024;
+	static final int DEFAULT_SESSION_BUFFER = 4096;
+	static final int DEFAULT_MAX_PENDING_OUTPUT = 1 << 20;
+	// The longest session name, and the longest first line read to find one
+	static final int MAX_SESSION_NAME = 64;
+	private static final int MAX_HEADER = 256;
+	// The most input a connection sends to the journal before it stops reading until some of it is on disk
+	private static final int MAX_UNCOMMITTED_INPUT = 64;
+	// The least amount of written responses dropped at once, once at least half of those held have been written
+	private static final int MIN_DISCARD = 1 << 16;
+
+	// The settings every session is created with
+	int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	int sessionBuffer = DEFAULT_SESSION_BUFFER;
+	int maxPendingOutput = DEFAULT_MAX_PENDING_OUTPUT;
+	int cacheSize = SrpnProgramCache.DEFAULT_CAPACITY;
+	SrpnNumericMode mode = SrpnNumericMode.INT32;
+	// Each session's 'r' command has its own values split from this, or they are the values of 'rand()' if it is null
+	SrpnSplittableRandom seededRandom = null;
+	// The metrics and profiler shared by every session, or null for none
+	SrpnMetrics metrics = null;
+	SrpnProfiler profiler = null;
+
+	private final ServerSocketChannel serverChannel;
+	private final Worker[] workers;
+	// The amount of connections which are open
+	private final AtomicInteger connections = new AtomicInteger();
+	// The named sessions, by their names
+	private final Map<String, SrpnSession> sessions = new HashMap<String, SrpnSession>();
+	// The journal named sessions' input is appended to, or null if they are not durable
+	private SrpnJournal journal = null;
+
+	/**
+	 * Constructor which starts listening for connections, and starts the worker threads which serve them.
+	 * Connections are not accepted until 'serve' is called.
+	 *
+	 * @param address
+	 * 			the address to listen on
+	 * @param threads
+	 * 			the amount of worker threads
+	 */
+	public SrpnServer(InetSocketAddress address, int threads) throws IOException {
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(address);
+		workers = new Worker[threads];
+		for(int i = 0; i < threads; i++) {
+			workers[i] = new Worker();
+			Thread thread = new Thread(workers[i], "srpn-worker-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Method which runs server mode with the command-line arguments that followed '--server'.
+	 *
+	 * @param args
+	 * 			the options
+	 */
+	public static void run(String[] args) {
+		String host = "127.0.0.1";
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int maxConnections = DEFAULT_MAX_CONNECTIONS;
+		int sessionBuffer = DEFAULT_SESSION_BUFFER;
+		int maxPendingOutput = DEFAULT_MAX_PENDING_OUTPUT;
+		int cacheSize = SrpnProgramCache.DEFAULT_CAPACITY;
+		SrpnNumericMode mode = SrpnNumericMode.INT32;
+		Long seed = null;
+		boolean metered = false;
+		boolean profiled = false;
+		String journalFile = null;
+		int journalBatch = SrpnJournal.DEFAULT_MAX_BATCH;
+		long compactSize = SrpnJournal.DEFAULT_COMPACT_SIZE;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--host") && i + 1 < args.length) {
+				host = args[++i];
+			}
+			else if(args[i].equals("--port") && i + 1 < args.length) {
+				port = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--max-connections") && i + 1 < args.length) {
+				maxConnections = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--session-buffer") && i + 1 < args.length) {
+				sessionBuffer = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--max-pending-output") && i + 1 < args.length) {
+				maxPendingOutput = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--cache-size") && i + 1 < args.length) {
+				cacheSize = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--mode") && i + 1 < args.length) {
+				mode = SRPN.parseMode(args[++i]);
+			}
+			else if(args[i].equals("--seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			}
+			else if(args[i].equals("--metrics")) {
+				metered = true;
+			}
+			else if(args[i].equals("--profile")) {
+				profiled = true;
+			}
+			else if(args[i].equals("--journal") && i + 1 < args.length) {
+				journalFile = args[++i];
+			}
+			else if(args[i].equals("--journal-batch") && i + 1 < args.length) {
+				journalBatch = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--compact-size") && i + 1 < args.length) {
+				compactSize = Long.parseLong(args[++i]);
+			}
+		}
+		SRPN.checkMetrics(mode, metered);
+
+		try {
+			SrpnServer server = new SrpnServer(new InetSocketAddress(host, port), threads);
+			server.maxConnections = maxConnections;
+			server.sessionBuffer = sessionBuffer;
+			server.maxPendingOutput = maxPendingOutput;
+			server.cacheSize = cacheSize;
+			server.mode = mode;
+			server.seededRandom = (seed == null) ? null : new SrpnSplittableRandom(seed);
+			server.metrics = metered ? SrpnMetrics.enable() : null;
+			server.profiler = profiled ? SrpnProfiler.enable() : null;
+			if(journalFile != null) {
+				SrpnJournal journal = server.openJournal(Paths.get(journalFile));
+				journal.setMaxBatch(journalBatch);
+				journal.setCompactSize(compactSize);
+				System.err.println("Recovered " + journal.getRecoveredSessions().size() + " sessions from " + journalFile);
+			}
+			System.err.println("Listening on " + server.getAddress());
+			server.serve();
+		} catch(IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Method which makes named sessions durable, by appending their input to a journal. Every session in the journal
+	 * is made again, to carry on when a connection names it. This must be called before 'serve', once the settings
+	 * the sessions are created with have been set.
+	 *
+	 * @param file
+	 * 			the journal file, which is created if it does not exist
+	 *
+	 * @return the journal
+	 * @throws IOException
+	 * 			if the journal cannot be read or written, or is for another numeric mode
+	 */
+	public SrpnJournal openJournal(Path file) throws IOException {
+		journal = new SrpnJournal(file, mode, sessionBuffer, name -> createSession(name, null));
+		synchronized(sessions) {
+			sessions.putAll(journal.getRecoveredSessions());
+		}
+		return journal;
+	}
+
+	/**
+	 * Method used to find the address the server is listening on, e.g. to find the port picked for a port of 0.
+	 *
+	 * @return the address
+	 */
+	public InetSocketAddress getAddress() throws IOException {
+		return (InetSocketAddress) serverChannel.getLocalAddress();
+	}
+
+	/**
+	 * Method which accepts connections until the server is closed, handing each to the next worker in turn.
+	 */
+	public void serve() throws IOException {
+		int nextWorker = 0;
+		while(serverChannel.isOpen()) {
+			SocketChannel channel;
+			try {
+				channel = serverChannel.accept();
+			} catch(IOException e) {
+				if(!serverChannel.isOpen()) {
+					return;
+				}
+				throw e;
+			}
+			if(connections.incrementAndGet() > maxConnections) {
+				connections.decrementAndGet();
+				channel.write(StandardCharsets.UTF_8.encode("Too many connections." + System.lineSeparator()));
+				channel.close();
+				continue;
+			}
+			workers[nextWorker].add(new Connection(channel));
+			nextWorker = (nextWorker + 1) % workers.length;
+		}
+	}
+
+	/**
+	 * Method used to stop accepting connections. Connections which are already open are served until they close,
+	 * but once the journal is closed, input to their named sessions can no longer be made durable.
+	 */
+	public void close() throws IOException {
+		serverChannel.close();
+		if(journal != null) {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Method which creates a session with the server's settings.
+	 *
+	 * @param name
+	 * 			the name of the session, or null
+	 * @param randomSource
+	 * 			the source of the session's 'r' command, or null for the values of 'rand()'
+	 */
+	private SrpnSession createSession(String name, SrpnRandomSource randomSource) {
+		SrpnSession session = new SrpnSession(name, mode, sessionBuffer, metrics, profiler);
+		if(cacheSize > 0) {
+			session.srpn.setProgramCache(new SrpnProgramCache(cacheSize, mode));
+		}
+		if(randomSource != null) {
+			session.srpn.setRandomSource(randomSource);
+		}
+		return session;
+	}
+
+	/**
+	 * A worker thread, which serves its connections as they become ready to be read or written.
+	 */
+	private class Worker implements Runnable {
+		private final Selector selector;
+		// Connections handed to the worker, which have not been registered with its selector yet
+		private final Queue<Connection> added = new ConcurrentLinkedQueue<Connection>();
+		// Connections whose input the journal has committed, so more of their responses can be written
+		private final Queue<Connection> committed = new ConcurrentLinkedQueue<Connection>();
+
+		Worker() throws IOException {
+			selector = Selector.open();
+		}
+
+		/**
+		 * Method used to hand a new connection to the worker, from the accepting thread.
+		 */
+		void add(Connection connection) {
+			connection.worker = this;
+			added.add(connection);
+			selector.wakeup();
+		}
+
+		/**
+		 * Method used by the journal's thread once some of a connection's input is on disk.
+		 */
+		void committed(Connection connection) {
+			committed.add(connection);
+			selector.wakeup();
+		}
+
+		public void run() {
+			while(true) {
+				try {
+					selector.select();
+				} catch(IOException e) {
+					System.err.println(e.getMessage());
+					return;
+				}
+				Connection connection;
+				while((connection = added.poll()) != null) {
+					connection.register(selector);
+				}
+				while((connection = committed.poll()) != null) {
+					try {
+						connection.write();
+					} catch(IOException e) {
+						connection.close();
+					}
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					connection = (Connection) key.attachment();
+					try {
+						if(key.isValid() && key.isReadable()) {
+							connection.read();
+						}
+						if(key.isValid() && key.isWritable()) {
+							connection.write();
+						}
+					} catch(IOException e) {
+						// The client went away, so its session ends
+						connection.close();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A single connection, and the calculator session it is served by.
+	 */
+	private class Connection {
+		private final SocketChannel channel;
+		private SelectionKey key;
+		Worker worker;
+
+		// Input as it is read, and once it has been decoded
+		private final ByteBuffer bytes = ByteBuffer.allocate(sessionBuffer);
+		private final CharBuffer chars = CharBuffer.allocate(sessionBuffer);
+		// Undecodable input is replaced, as it is in batch mode
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		// The source of a new session's 'r' command, split when the connection is accepted
+		private final SrpnRandomSource randomSource;
+		// The first line, while it is read to find whether it names a session, and then the session it chose
+		private final StringBuilder header = new StringBuilder();
+		private SrpnSession session = null;
+		// Whether the first line ended with a carriage return, so a line feed straight after it is part of the same break
+		private boolean skipLineFeed = false;
+
+		// Responses which have not been written yet, and the amount of them which has
+		private final ResponseBuffer response = new ResponseBuffer();
+		private final PrintStream responsePrinter = new PrintStream(response, false, StandardCharsets.UTF_8);
+		private int written = 0;
+
+		// Where the responses to each input sent to the journal start, until it is on disk
+		private final ArrayDeque<Integer> uncommitted = new ArrayDeque<Integer>();
+		private long appended = 0;
+		private final AtomicLong commits = new AtomicLong();
+		// The exception the journal failed with before all of the connection's input was on disk, or null
+		private volatile IOException journalFailure = null;
+		private boolean journalFailed = false;
+
+		// Whether the client has finished sending, or the session has stopped
+		private boolean inputClosed = false;
+		private boolean closed = false;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+			randomSource = (seededRandom == null) ? null : seededRandom.split();
+		}
+
+		/**
+		 * Method which registers the connection with a worker's selector, on the worker's own thread.
+		 */
+		void register(Selector selector) {
+			try {
+				channel.configureBlocking(false);
+				key = channel.register(selector, SelectionKey.OP_READ, this);
+			} catch(IOException e) {
+				close();
+			}
+		}
+
+		/**
+		 * Method which processes whatever input the client has sent, and writes as much of the responses as can be.
+		 */
+		void read() throws IOException {
+			int read = channel.read(bytes);
+			bytes.flip();
+			decoder.decode(bytes, chars, read < 0);
+			if(read < 0) {
+				decoder.flush(chars);
+			}
+			// Part of a character is kept until the rest of it is read
+			bytes.compact();
+			chars.flip();
+			try {
+				if(session != null || openSession(read < 0)) {
+					if(skipLineFeed && chars.hasRemaining()) {
+						skipLineFeed = false;
+						if(chars.get(chars.position()) == '\n') {
+							chars.get();
+						}
+					}
+					if(chars.hasRemaining()) {
+						process(chars);
+					}
+					// The last line of a named session is kept for the next connection to finish
+					if(read < 0 && session.name == null) {
+						session.finish();
+					}
+				}
+				if(read < 0) {
+					inputClosed = true;
+				}
+			} catch(UncheckedIOException e) {
+				// The journal has failed, so the input cannot be made durable, but the session is kept as it was
+				journalFailure = e.getCause();
+			} catch(RuntimeException e) {
+				// The session stops, as it would have if it had been run on its own
+				responsePrinter.println(e);
+				inputClosed = true;
+				if(session != null && session.name != null) {
+					synchronized(sessions) {
+						sessions.remove(session.name, session);
+					}
+				}
+			}
+			chars.clear();
+			write();
+		}
+
+		/**
+		 * Method which reads the first line, and then serves the session it names, or a new session of its own.
+		 *
+		 * @param end
+		 * 			whether the client has finished sending
+		 *
+		 * @return whether the connection now has a session
+		 */
+		private boolean openSession(boolean end) {
+			boolean complete = false;
+			while(!complete && chars.hasRemaining() && header.length() < MAX_HEADER) {
+				char c = chars.get();
+				header.append(c);
+				complete = c == '\n' || c == '\r' || header.charAt(0) != '#';
+			}
+			if(!complete && !end && header.length() < MAX_HEADER) {
+				return false;
+			}
+
+			String[] words = header.toString().trim().split("\\s+");
+			if(words.length == 2 && words[0].equals("#session") && words[1].length() <= MAX_SESSION_NAME) {
+				synchronized(sessions) {
+					SrpnSession named = sessions.get(words[1]);
+					boolean created = named == null;
+					if(created) {
+						named = createSession(words[1], randomSource);
+						sessions.put(words[1], named);
+					}
+					if(!named.attach(this)) {
+						responsePrinter.println("Session in use.");
+						inputClosed = true;
+						return false;
+					}
+					session = named;
+					session.setOutput(responsePrinter);
+					// A new session is in the journal before it is acknowledged, so it is made again from its first state
+					if(created && journal != null) {
+						sentToJournal();
+						journal.appendSnapshot(session.name, session.srpn.snapshot(), this::committed);
+					}
+				}
+				skipLineFeed = header.charAt(header.length() - 1) == '\r';
+				responsePrinter.println();
+				return true;
+			}
+			if(header.length() == 0) {
+				return false;
+			}
+			session = createSession(null, randomSource);
+			session.setOutput(responsePrinter);
+			process(CharBuffer.wrap(header));
+			return true;
+		}
+
+		/**
+		 * Method which processes input, once it is in the journal if the session is durable.
+		 */
+		private void process(CharBuffer input) {
+			if(journal != null && session.name != null) {
+				sentToJournal();
+				journal.appendInput(session.name, input, this::committed);
+			}
+			session.process(input);
+		}
+
+		/**
+		 * Method which holds back the responses from here on, until what has just been sent to the journal is on disk.
+		 */
+		private void sentToJournal() {
+			uncommitted.add(response.size());
+			appended++;
+		}
+
+		/**
+		 * Method run by the journal's thread once the next of the connection's appends is on disk,
+		 * or once the journal has failed before it was.
+		 */
+		private void committed(IOException failure) {
+			if(failure != null) {
+				journalFailure = failure;
+			}
+			else {
+				commits.incrementAndGet();
+			}
+			worker.committed(this);
+		}
+
+		/**
+		 * Method which writes as much of the responses as the client will take, and closes the connection
+		 * once every response has been written if the client has finished sending.
+		 * Responses to input which is not on disk yet are kept until it is.
+		 * Input is not read while too much output is waiting, so a client which does not read cannot use up memory.
+		 */
+		void write() throws IOException {
+			if(closed) {
+				return;
+			}
+			while(!uncommitted.isEmpty() && appended - uncommitted.size() < commits.get()) {
+				uncommitted.remove();
+			}
+			if(journalFailure != null && !journalFailed) {
+				failJournal();
+			}
+			int durable = uncommitted.isEmpty() ? response.size() : uncommitted.peek();
+			if(written < durable) {
+				written += channel.write(response.pending(written, durable));
+			}
+			if(written == response.size() && uncommitted.isEmpty()) {
+				response.reset();
+				written = 0;
+				if(inputClosed) {
+					close();
+					return;
+				}
+			}
+			else if(written >= MIN_DISCARD && written >= response.size() - written) {
+				// Responses which have been written are dropped, even while the rest wait for the journal
+				response.discard(written);
+				for(int i = uncommitted.size(); i > 0; i--) {
+					uncommitted.add(uncommitted.remove() - written);
+				}
+				durable -= written;
+				written = 0;
+			}
+			boolean reading = !inputClosed && response.size() - written <= maxPendingOutput && uncommitted.size() < MAX_UNCOMMITTED_INPUT;
+			key.interestOps((written < durable ? SelectionKey.OP_WRITE : 0) | (reading ? SelectionKey.OP_READ : 0));
+		}
+
+		/**
+		 * Method which drops the responses to input which will never be on disk, and tells the client the journal
+		 * has failed, after which the connection is closed once the responses before them have been written.
+		 */
+		private void failJournal() {
+			journalFailed = true;
+			if(!uncommitted.isEmpty()) {
+				response.truncate(uncommitted.peek());
+				uncommitted.clear();
+			}
+			responsePrinter.println("Journal failed: " + journalFailure.getMessage());
+			inputClosed = true;
+		}
+
+		/**
+		 * Method which closes the connection, ending its session unless it is named.
+		 */
+		void close() {
+			if(closed) {
+				return;
+			}
+			closed = true;
+			// Counted as closed first, so a client which reconnects once it sees the close is not turned away
+			connections.decrementAndGet();
+			if(session != null) {
+				session.detach(this);
+			}
+			if(key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch(IOException e) {
+				// The connection is closed either way
+			}
+		}
+	}
+
+	/**
+	 * A buffer of responses, whose bytes can be written to a channel without being copied.
+	 */
+	private static class ResponseBuffer extends ByteArrayOutputStream {
+
+		ByteBuffer pending(int written, int end) {
+			return ByteBuffer.wrap(buf, written, end - written);
+		}
+
+		/**
+		 * Method which drops the first bytes of the buffer, moving the rest to its start.
+		 */
+		void discard(int length) {
+			System.arraycopy(buf, length, buf, 0, count - length);
+			count -= length;
+		}
+
+		/**
+		 * Method which drops the end of the buffer, after the given length.
+		 */
+		void truncate(int length) {
+			count = length;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * The SrpnSession class for SRPN, which is a single calculator session served over a connection. See 'SrpnServer' class.
+ * Input is processed as it arrives, and the results and errors of each line are printed to the session's output,
+ * followed by an empty line. The output can be changed, so a named session can carry on over a new connection.
+ *
+ * A session with a name is durable when the server keeps a journal, and is made again from it after a restart.
+ * See 'SrpnJournal' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnServer.java
+ */
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+
+public class SrpnSession {
+	// The name a client gives to carry on the session, or null if it cannot be carried on
+	final String name;
+	final SrpnCalculator srpn;
+	private final SrpnStreamInput input;
+
+	// Where results and errors are printed, or null to discard them
+	private PrintStream out = null;
+
+	// The connection the session is being served over, or null if none is
+	private Object owner = null;
+
+	/**
+	 * Constructor which creates a session without metrics or profiling.
+	 *
+	 * @param name
+	 * 			the name of the session, or null
+	 * @param mode
+	 * 			the numeric mode of the session's calculator
+	 * @param bufferSize
+	 * 			the amount of input characters the session holds at once. See 'SrpnStreamInput' class.
+	 */
+	public SrpnSession(String name, SrpnNumericMode mode, int bufferSize) {
+		this(name, mode, bufferSize, null, null);
+	}
+
+	/**
+	 * Constructor which creates a session.
+	 *
+	 * @param name
+	 * 			the name of the session, or null
+	 * @param mode
+	 * 			the numeric mode of the session's calculator
+	 * @param bufferSize
+	 * 			the amount of input characters the session holds at once. See 'SrpnStreamInput' class.
+	 * @param metrics
+	 * 			the metrics the session's work is counted in, or null for none
+	 * @param profiler
+	 * 			the profiler the session's lines are timed by, or null for none
+	 */
+	public SrpnSession(String name, SrpnNumericMode mode, int bufferSize, SrpnMetrics metrics, SrpnProfiler profiler) {
+		this.name = name;
+		srpn = mode.createCalculator(new SessionOutput(), metrics, profiler);
+		input = new SrpnStreamInput(srpn, mode, bufferSize);
+		// Each response ends with an empty line
+		input.setLineListener(() -> {
+			if(out != null) {
+				out.println();
+			}
+		});
+	}
+
+	/**
+	 * Method used to set where the session's results and errors are printed.
+	 *
+	 * @param out
+	 * 			the stream results and errors are printed to, or null to discard them
+	 */
+	public void setOutput(PrintStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Method which processes input as it arrives. A line which is not complete is kept until the rest of it arrives.
+	 *
+	 * @param chars
+	 * 			the input, which is all used up
+	 */
+	public void process(CharBuffer chars) {
+		input.process(chars);
+	}
+
+	/**
+	 * Method which ends the session's input, processing the last line even though it has no line break.
+	 */
+	public void finish() {
+		input.finish();
+	}
+
+	/**
+	 * Method used to serve the session over a connection, unless it is already being served over another.
+	 *
+	 * @param connection
+	 * 			the connection
+	 *
+	 * @return whether the session is now served over the connection
+	 */
+	synchronized boolean attach(Object connection) {
+		if(owner != null) {
+			return false;
+		}
+		owner = connection;
+		return true;
+	}
+
+	/**
+	 * Method used once a connection the session was served over has closed.
+	 *
+	 * @param connection
+	 * 			the connection
+	 */
+	synchronized void detach(Object connection) {
+		if(owner == connection) {
+			owner = null;
+			out = null;
+		}
+	}
+
+	/**
+	 * An output which prints to whichever stream the session's output is currently set to.
+	 */
+	private class SessionOutput implements SrpnOutput {
+
+		public void printResult(int value) {
+			if(out != null) {
+				out.println(value);
+			}
+		}
+
+		public void printResult(long value) {
+			if(out != null) {
+				out.println(value);
+			}
+		}
+
+		public void printResult(BigInteger value) {
+			if(out != null) {
+				out.println(value);
+			}
+		}
+
+		public void printError(String message) {
+			if(out != null) {
+				out.println(message);
+			}
+		}
+	}
+}
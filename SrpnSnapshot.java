@@ -0,0 +1,291 @@
+/**
+ * The SrpnSnapshot class for SRPN, which holds the full state of a calculator: its numeric mode, the values on its stack,
+ * and the source of its 'r' command at its current value. A calculator restored from a snapshot carries on exactly
+ * as the calculator it was taken from would have. See 'SrpnCalculator' interface.
+ *
+ * Snapshots are written in a compact binary format, with a single write. All numbers are big-endian:
+ * the magic number "SRPN", the format version as a short, the numeric mode as a byte, the index of the input file
+ * as an int and the byte offset in it as a long, for a checkpoint (see 'SrpnBatch' class), the kind of random source
+ * as a byte followed by its state, the amount of values on the stack as an int followed by each value from the bottom
+ * of the stack (an int in 'int32' mode, a long in 'int64' mode, or an int length and two's complement bytes in
+ * 'bigint' mode), and finally a CRC-32 of everything before it as an int.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBatch.java
+ */
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class SrpnSnapshot {
+	// "SRPN" in ASCII, which every snapshot starts with
+	private static final int MAGIC = 0x5352504E;
+	// The version of the format written, which is the newest that can be read
+	static final short VERSION = 1;
+
+	// The kinds of random source. See 'SrpnRandomSource' interface.
+	private static final byte GLIBC_RANDOM = 0;
+	private static final byte SPLITTABLE_RANDOM = 1;
+
+	private final SrpnNumericMode mode;
+	private final BigInteger[] stack;
+	private final SrpnRandomSource randomSource;
+
+	// Where in the input the snapshot was taken, for a checkpoint
+	private int inputFile = 0;
+	private long inputOffset = 0;
+
+	/**
+	 * Constructor which takes the state of a calculator.
+	 *
+	 * @param mode
+	 * 			the calculator's numeric mode
+	 * @param stack
+	 * 			the values on the calculator's stack, from the bottom of the stack to the top
+	 * @param randomSource
+	 * 			a copy of the calculator's random source, which is not used by anything else
+	 */
+	public SrpnSnapshot(SrpnNumericMode mode, BigInteger[] stack, SrpnRandomSource randomSource) {
+		if(!(randomSource instanceof SrpnGlibcRandom) && !(randomSource instanceof SrpnSplittableRandom)) {
+			throw new IllegalArgumentException("Only the built-in random sources can be held in a snapshot.");
+		}
+		this.mode = mode;
+		this.stack = stack.clone();
+		this.randomSource = randomSource;
+	}
+
+	public SrpnNumericMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Method used to find the values on the stack when the snapshot was taken.
+	 *
+	 * @return the values, from the bottom of the stack to the top
+	 */
+	public BigInteger[] getStack() {
+		return stack.clone();
+	}
+
+	/**
+	 * Method used to find the random source when the snapshot was taken.
+	 *
+	 * @return a copy of the source, so restoring the same snapshot twice gives the same values both times
+	 */
+	public SrpnRandomSource getRandomSource() {
+		return randomSource.copy();
+	}
+
+	public int getInputFile() {
+		return inputFile;
+	}
+
+	public long getInputOffset() {
+		return inputOffset;
+	}
+
+	/**
+	 * Method used to record where in the input the snapshot was taken, so a replay can carry on from there.
+	 *
+	 * @param inputFile
+	 * 			the index of the input file, in the order the files were given
+	 * @param inputOffset
+	 * 			the byte offset in the file of the first line which had not been processed
+	 */
+	public void setInputPosition(int inputFile, long inputOffset) {
+		this.inputFile = inputFile;
+		this.inputOffset = inputOffset;
+	}
+
+	/**
+	 * Method used to check that the snapshot can be restored by a calculator.
+	 *
+	 * @param calculatorMode
+	 * 			the calculator's numeric mode
+	 * @throws IllegalArgumentException
+	 * 			if the snapshot was taken in another mode
+	 */
+	void checkMode(SrpnNumericMode calculatorMode) {
+		if(mode != calculatorMode) {
+			throw new IllegalArgumentException("Snapshot is for " + mode.modeName + " mode, not " + calculatorMode.modeName + ".");
+		}
+	}
+
+	/**
+	 * Method used to write the snapshot to a file, replacing it as a whole so a crash never leaves half a snapshot.
+	 * The snapshot is written to a file next to it first, with a single write, and then moved over it.
+	 *
+	 * @param file
+	 * 			the file the snapshot is written to
+	 */
+	public void write(Path file) throws IOException {
+		ByteBuffer buffer = toBytes();
+		Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Method used to read a snapshot from a file written by 'write'.
+	 *
+	 * @param file
+	 * 			the file the snapshot is read from
+	 *
+	 * @return the snapshot
+	 * @throws IOException
+	 * 			if the file cannot be read, or is not a snapshot of a version which can be read
+	 */
+	public static SrpnSnapshot read(Path file) throws IOException {
+		return fromBytes(ByteBuffer.wrap(Files.readAllBytes(file)));
+	}
+
+	/**
+	 * Method used to write the snapshot in its binary format.
+	 *
+	 * @return a buffer holding the snapshot, ready to be read
+	 */
+	public ByteBuffer toBytes() {
+		byte[][] bigValues = null;
+		int size = Integer.BYTES + Short.BYTES + 1 + Integer.BYTES + Long.BYTES + 1 + Integer.BYTES + Integer.BYTES;
+		size += (randomSource instanceof SrpnGlibcRandom) ? SrpnGlibcRandom.STATE_SIZE : SrpnSplittableRandom.STATE_SIZE;
+		switch(mode) {
+		case INT64:
+			size += stack.length * Long.BYTES;
+			break;
+		case BIG_INTEGER:
+			bigValues = new byte[stack.length][];
+			for(int i = 0; i < stack.length; i++) {
+				bigValues[i] = stack[i].toByteArray();
+				size += Integer.BYTES + bigValues[i].length;
+			}
+			break;
+		default:
+			size += stack.length * Integer.BYTES;
+			break;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put((byte) mode.ordinal());
+		buffer.putInt(inputFile);
+		buffer.putLong(inputOffset);
+		if(randomSource instanceof SrpnGlibcRandom) {
+			buffer.put(GLIBC_RANDOM);
+			((SrpnGlibcRandom) randomSource).writeState(buffer);
+		}
+		else {
+			buffer.put(SPLITTABLE_RANDOM);
+			((SrpnSplittableRandom) randomSource).writeState(buffer);
+		}
+		buffer.putInt(stack.length);
+		for(int i = 0; i < stack.length; i++) {
+			switch(mode) {
+			case INT64:
+				buffer.putLong(stack[i].longValue());
+				break;
+			case BIG_INTEGER:
+				buffer.putInt(bigValues[i].length);
+				buffer.put(bigValues[i]);
+				break;
+			default:
+				buffer.putInt(stack[i].intValue());
+				break;
+			}
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Method used to read a snapshot in its binary format.
+	 *
+	 * @param buffer
+	 * 			the buffer holding the snapshot
+	 *
+	 * @return the snapshot
+	 * @throws IOException
+	 * 			if the buffer does not hold a snapshot of a version which can be read
+	 */
+	public static SrpnSnapshot fromBytes(ByteBuffer buffer) throws IOException {
+		int start = buffer.position();
+		try {
+			if(buffer.getInt() != MAGIC) {
+				throw new IOException("Not an SRPN snapshot.");
+			}
+			short version = buffer.getShort();
+			if(version < 1 || version > VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + ".");
+			}
+			SrpnNumericMode mode = SrpnNumericMode.values()[buffer.get()];
+			int inputFile = buffer.getInt();
+			long inputOffset = buffer.getLong();
+			byte randomKind = buffer.get();
+			SrpnRandomSource randomSource;
+			if(randomKind == GLIBC_RANDOM) {
+				randomSource = SrpnGlibcRandom.readState(buffer);
+			}
+			else if(randomKind == SPLITTABLE_RANDOM) {
+				randomSource = SrpnSplittableRandom.readState(buffer);
+			}
+			else {
+				throw new IOException("Unknown random source in snapshot.");
+			}
+			int stackSize = buffer.getInt();
+			if(stackSize < 0 || stackSize > SrpnStack.MAX_SIZE) {
+				throw new IOException("Snapshot stack size out of range.");
+			}
+			BigInteger[] stack = new BigInteger[stackSize];
+			for(int i = 0; i < stackSize; i++) {
+				switch(mode) {
+				case INT64:
+					stack[i] = BigInteger.valueOf(buffer.getLong());
+					break;
+				case BIG_INTEGER:
+					int length = buffer.getInt();
+					if(length < 1 || length > buffer.remaining()) {
+						throw new IOException("Snapshot is corrupt.");
+					}
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					stack[i] = new BigInteger(bytes);
+					break;
+				default:
+					stack[i] = BigInteger.valueOf(buffer.getInt());
+					break;
+				}
+			}
+			CRC32 crc = new CRC32();
+			ByteBuffer content = buffer.duplicate();
+			content.position(start).limit(buffer.position());
+			crc.update(content);
+			if(buffer.getInt() != (int) crc.getValue()) {
+				throw new IOException("Snapshot is corrupt.");
+			}
+			SrpnSnapshot snapshot = new SrpnSnapshot(mode, stack, randomSource);
+			snapshot.setInputPosition(inputFile, inputOffset);
+			return snapshot;
+		} catch(BufferUnderflowException | ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Snapshot is corrupt.");
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * A seedable random source for SRPN, for when the 'r' command should give different values than the C library's,
+ * e.g. a different sequence for each parallel session. See 'SrpnParallel' class.
+ *
+ * The values are those of a 'SplittableRandom' with the same seed. Its SplitMix64 generator is worked out here,
+ * as its state is only two longs, which a snapshot can hold. See 'SrpnSnapshot' class.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnRandomSource.java
+ */
+
+import java.nio.ByteBuffer;
+
+public class SrpnSplittableRandom implements SrpnRandomSource {
+	// The amount added to the state for each value, as in 'SplittableRandom'
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	// The amount of bytes the source takes in a snapshot
+	static final int STATE_SIZE = 2 * Long.BYTES;
+
+	private final long seed;
+	private long state;
+
+	/**
+	 * Constructor which takes the seed, so the same seed always gives the same values.
+	 *
+	 * @param seed
+	 * 			the seed
+	 */
+	public SrpnSplittableRandom(long seed) {
+		this.seed = seed;
+		state = seed;
+	}
+
+	public int nextInt() {
+		// The same range as 'rand()', from 0 to the maximum integer value
+		return mix32(state += GOLDEN_GAMMA) >>> 1;
+	}
+
+	public void reset() {
+		state = seed;
+	}
+
+	public SrpnSplittableRandom copy() {
+		SrpnSplittableRandom copy = new SrpnSplittableRandom(seed);
+		copy.state = state;
+		return copy;
+	}
+
+	/**
+	 * Method used to create a source for another session, whose values are independent of this one's.
+	 * Splitting the same seed in the same order always gives the same sources.
+	 *
+	 * @return the new source
+	 */
+	public SrpnSplittableRandom split() {
+		return new SrpnSplittableRandom(mix64(state += GOLDEN_GAMMA));
+	}
+
+	/**
+	 * Method used to write the source's seed and current value to a snapshot.
+	 *
+	 * @param buffer
+	 * 			the buffer the source is written to, which must have 'STATE_SIZE' bytes left
+	 */
+	void writeState(ByteBuffer buffer) {
+		buffer.putLong(seed);
+		buffer.putLong(state);
+	}
+
+	/**
+	 * Method used to read a source written by 'writeState'.
+	 *
+	 * @param buffer
+	 * 			the buffer the source is read from
+	 *
+	 * @return the source, at the same value it was written at
+	 */
+	static SrpnSplittableRandom readState(ByteBuffer buffer) {
+		SrpnSplittableRandom random = new SrpnSplittableRandom(buffer.getLong());
+		random.state = buffer.getLong();
+		return random;
+	}
+
+	/**
+	 * Method which mixes the bits of the state into a long, as 'SplittableRandom.nextLong' does.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Method which mixes the bits of the state into an integer, as 'SplittableRandom.nextInt' does.
+	 */
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+}
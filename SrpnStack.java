@@ -1,100 +1,117 @@
 /**
  * The SrpnStack class for SRPN, which handles all of the functionality of the stack.
- * 
+ * Values are held as primitive integers in a fixed size array, and are only converted to text when printed.
+ *
  * @author Thomas Vanner
  * @version 1.0
  * @release 25/11/2016
  * @See SrpnProcessInput.java
  */
 
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.EmptyStackException;
 
 public class SrpnStack{
-	Stack<String> srpnStack;
+	// The maximum amount of elements that can be held on the stack
+	static final int MAX_SIZE = 23;
+
+	int[] srpnStack;
+
+	// Receives the stack's contents when printed, and any stack overflow errors
+	private SrpnOutput srpnOutput;
+
+	// Stores the index of the next free slot, which is also the amount of elements on the stack
+	private int top = 0;
 
 	/**
-	 * Constructor which initiates a new stack.
+	 * Constructor which initiates a new stack, which prints to 'System.out' and 'System.err'.
 	 */
 	public SrpnStack(){
-		srpnStack = new Stack<String>();
+		this(new SrpnPrintOutput());
 	}
 
 	/**
-	 * Method used to push the user input onto the stack.
-	 * 
-	 * @param userInput
-	 * 			
+	 * Constructor which initiates a new stack.
+	 *
+	 * @param output
+	 * 		the output the stack's contents and errors are sent to
 	 */
-	public void push(String userInput){
-		// Checks if there are less than 23 elements on the stack
-		if(size() < 23){
-			srpnStack.push(userInput);
-		}
-		else{
-			System.err.println("Stack overflow.");
-		}
+	public SrpnStack(SrpnOutput output){
+		srpnStack = new int[MAX_SIZE];
+		srpnOutput = output;
 	}
 
 	/**
 	 * Method used to push an integer onto the stack.
-	 * 
+	 *
 	 * @param operationResult
 	 * 		the result of the operation. See 'Operator' class.
 	 */
 	public void pushInt(int operationResult){
-		String resultToString = Integer.toString(operationResult);
-		push(resultToString);
+		// Checks if there are less than 23 elements on the stack
+		if(top < MAX_SIZE){
+			srpnStack[top++] = operationResult;
+		}
+		else{
+			srpnOutput.printError("Stack overflow.");
+		}
 	}
 
 	/**
 	 * Method pop an integer from the stack.
-	 * 
+	 *
 	 * @return the popped integer.
 	 */
 	public int popInt(){
-		int popInt = Integer.parseInt(srpnStack.pop());
-		return popInt;
-	}
-
-	/**
-	 * Method used to pop an item off the stack.
-	 * 
-	 * @return the popped string
-	 */
-	public String pop(){
-		String popString = srpnStack.pop();
-		return popString;
+		if(top == 0){
+			throw new EmptyStackException();
+		}
+		return srpnStack[--top];
 	}
 
 	/**
 	 * Method used to peek at the top item on the stack.
-	 * 
+	 *
 	 * @return the top item on the stack.
 	 */
-	public String peek(){
-		String topItem = srpnStack.peek();
-		return topItem;
+	public int peekInt(){
+		if(top == 0){
+			throw new EmptyStackException();
+		}
+		return srpnStack[top - 1];
 	}
 
 	/**
 	 * Method used to find the amount of element that are currently on the stack.
-	 * 
+	 *
 	 * @return the size of the stack.
 	 */
 	public int size(){
-		int srpnSize = srpnStack.size();
-		return srpnSize;
+		return top;
 	}
 
 	/**
-	 * Method used to print the conents of the stack.
-	 * 
-	 * @param operationResult
-	 * 		the result of the operation. See 'Operator' class.
+	 * Method used to remove every element from the stack.
+	 */
+	public void clear(){
+		top = 0;
+	}
+
+	/**
+	 * Method used to copy the contents of the stack.
+	 *
+	 * @return the elements on the stack, from the bottom of the stack to the top.
+	 */
+	public int[] toArray(){
+		return Arrays.copyOf(srpnStack, top);
+	}
+
+	/**
+	 * Method used to print the conents of the stack, from the bottom of the stack to the top.
 	 */
 	public void printStack(){
-		for(int i = 0; i < size(); i++){
-			System.out.println(srpnStack.get(i));
-		}	
+		for(int i = 0; i < top; i++){
+			srpnOutput.printResult(srpnStack[i]);
+		}
 	}
 }
@@ -0,0 +1,333 @@
+/**
+ * The SrpnStreamInput class for SRPN, which processes input as it is read, a buffer at a time, rather than a line at a time.
+ * A line which fits in the buffer is processed as a whole, exactly as it would be if it had been read with 'readLine'.
+ * A longer line is compiled and executed in parts, each ending where one token ends and the next starts,
+ * so memory use is bounded by the buffer however long a line is. The output is the same either way.
+ *
+ * An operand which is longer than the buffer is read a few digits at a time. See 'SrpnOperandAccumulator' class.
+ * A '#' discards the rest of its line, even where that is in buffers which have not been read yet.
+ * Lines are split as 'BufferedReader.readLine' splits them, by '\n', '\r' or '\r\n'.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBatch.java
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+
+public class SrpnStreamInput {
+	// The default amount of input held at once
+	static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final SrpnCalculator srpn;
+
+	private final char[] buffer;
+	// The amount of characters in the buffer
+	private int count = 0;
+	// The buffer, as read by the calculator
+	private final BufferedChars bufferedChars = new BufferedChars();
+
+	// Holds each part of a long line as it is compiled
+	private final SrpnProgram partProgram = new SrpnProgram();
+	// Reads an operand which is longer than the buffer
+	private final SrpnOperandAccumulator operand;
+
+	// Whether the rest of the current line is a comment, or an operand which carries on from the last buffer
+	private boolean inComment = false;
+	private boolean inOperand = false;
+	// Whether the current line has been partly processed already
+	private boolean inLongLine = false;
+	// Whether the last character was a '\r', so a following '\n' is part of the same line break
+	private boolean skipLineFeed = false;
+
+	// Called after each line has been processed, or null
+	private Runnable lineListener = null;
+
+	/**
+	 * Constructor which uses the default buffer size.
+	 *
+	 * @param srpn
+	 * 			the calculator which processes the input
+	 * @param mode
+	 * 			the calculator's numeric mode, which operands longer than the buffer are read for
+	 */
+	public SrpnStreamInput(SrpnCalculator srpn, SrpnNumericMode mode) {
+		this(srpn, mode, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructor which sets how much input is held at once.
+	 *
+	 * @param srpn
+	 * 			the calculator which processes the input
+	 * @param mode
+	 * 			the calculator's numeric mode, which operands longer than the buffer are read for
+	 * @param bufferSize
+	 * 			the amount of characters held at once, which must be at least 2
+	 */
+	public SrpnStreamInput(SrpnCalculator srpn, SrpnNumericMode mode, int bufferSize) {
+		if(bufferSize < 2) {
+			throw new IllegalArgumentException("Buffer size must be at least 2.");
+		}
+		this.srpn = srpn;
+		buffer = new char[bufferSize];
+		bufferedChars.chars = buffer;
+		operand = new SrpnOperandAccumulator(mode);
+	}
+
+	/**
+	 * Method used to set a listener which is called after each line has been processed, e.g. to flush the output.
+	 *
+	 * @param listener
+	 * 			the listener, or null for none
+	 */
+	public void setLineListener(Runnable listener) {
+		lineListener = listener;
+	}
+
+	/**
+	 * Method which processes all of the input from a channel, decoding it with the given decoder.
+	 *
+	 * @param channel
+	 * 			the channel the input is read from, which is not closed
+	 * @param decoder
+	 * 			the decoder for the input's character set
+	 */
+	public void process(ReadableByteChannel channel, CharsetDecoder decoder) throws IOException {
+		process(Channels.newReader(channel, decoder, buffer.length));
+	}
+
+	/**
+	 * Method which processes all of the input from a reader, until the end of the input is reached.
+	 *
+	 * @param reader
+	 * 			the reader the input is read from, which is not closed
+	 */
+	public void process(Reader reader) throws IOException {
+		int read;
+		while((read = reader.read(buffer, count, buffer.length - count)) >= 0) {
+			int start = count;
+			count += read;
+			processBuffer(start);
+		}
+		finish();
+	}
+
+	/**
+	 * Method which processes input which has already been read, e.g. from a non-blocking channel.
+	 * A line which is not complete is kept until the rest of it is given, or until the input is finished.
+	 *
+	 * @param input
+	 * 			the input, which is all used up
+	 */
+	public void process(CharBuffer input) {
+		while(input.hasRemaining()) {
+			int read = Math.min(input.remaining(), buffer.length - count);
+			input.get(buffer, count, read);
+			int start = count;
+			count += read;
+			processBuffer(start);
+		}
+	}
+
+	/**
+	 * Method which ends the input, processing the last line even though it has no line break.
+	 * Any input given afterwards is processed as if it were the start of a new input.
+	 */
+	public void finish() {
+		// The last line has no line break
+		if(inOperand) {
+			finishOperand();
+		}
+		if(count > 0 || inLongLine) {
+			endLine(0, count);
+		}
+		count = 0;
+		inComment = false;
+		skipLineFeed = false;
+	}
+
+	/**
+	 * Method which processes every complete line in the buffer, and as much of the last line as can be without the rest of it.
+	 * Anything left is moved to the start of the buffer, to be processed once more input has been read.
+	 *
+	 * @param start
+	 * 			the index of the first character which has just been read
+	 */
+	private void processBuffer(int start) {
+		int lineStart = 0;
+		int i = start;
+		if(skipLineFeed && i < count) {
+			skipLineFeed = false;
+			if(buffer[i] == '\n') {
+				lineStart = ++i;
+			}
+		}
+		// Digits which carry on an operand from the last buffer are read without being kept
+		if(inOperand) {
+			while(i < count && SrpnCompiler.isOperand(buffer[i])) {
+				operand.add(buffer[i++]);
+			}
+			if(i == count) {
+				count = 0;
+				return;
+			}
+			finishOperand();
+			lineStart = i;
+		}
+
+		for(; i < count; i++) {
+			char c = buffer[i];
+			if(c == '\n' || c == '\r') {
+				endLine(lineStart, i);
+				if(c == '\r') {
+					if(i + 1 == count) {
+						skipLineFeed = true;
+					}
+					else if(buffer[i + 1] == '\n') {
+						i++;
+					}
+				}
+				lineStart = i + 1;
+			}
+		}
+
+		if(lineStart == count) {
+			count = 0;
+		}
+		else if(lineStart > 0) {
+			// The start of the last line is kept, to be processed as a whole once the rest of it has been read
+			System.arraycopy(buffer, lineStart, buffer, 0, count - lineStart);
+			count -= lineStart;
+		}
+		else if(count == buffer.length) {
+			processPart();
+		}
+	}
+
+	/**
+	 * Method which processes the part of a line which fills the buffer, up to the start of the last token in it.
+	 * The last token is kept, as it may carry on into the next buffer, unless it is an operand which fills the whole buffer.
+	 */
+	private void processPart() {
+		inLongLine = true;
+		if(inComment) {
+			count = 0;
+			return;
+		}
+		int end = count - 1;
+		// Finds the start of the last token which may carry on, which is either an operand or a '-' followed by one
+		while(end > 0 && SrpnCompiler.isOperand(buffer[end]) && (SrpnCompiler.isOperand(buffer[end - 1]) || buffer[end - 1] == '-')) {
+			end--;
+		}
+		if(end == 0) {
+			// An operand fills the buffer, so it is read as it is rather than kept
+			boolean isNegative = buffer[0] == '-';
+			operand.start(isNegative);
+			for(int i = isNegative ? 1 : 0; i < count; i++) {
+				operand.add(buffer[i]);
+			}
+			inOperand = true;
+			count = 0;
+			return;
+		}
+		compilePart(0, end);
+		executePart();
+		System.arraycopy(buffer, end, buffer, 0, count - end);
+		count -= end;
+	}
+
+	/**
+	 * Method which ends the current line, processing whatever of it is left in the buffer.
+	 *
+	 * @param start
+	 * 			the index of the first character of the line left in the buffer
+	 * @param end
+	 * 			the index after the last character of the line
+	 */
+	private void endLine(int start, int end) {
+		// The rest of a long line is processed as a line of its own, as it starts where a token starts
+		if(inLongLine) {
+			executePart();
+			if(inComment) {
+				start = end;
+			}
+		}
+		bufferedChars.length = count;
+		srpn.processCommand(bufferedChars, start, end);
+		inComment = false;
+		inLongLine = false;
+		if(lineListener != null) {
+			lineListener.run();
+		}
+	}
+
+	/**
+	 * Method which compiles part of a long line, up to the first '#' in it, after which the rest of the line is skipped.
+	 *
+	 * @param start
+	 * 			the index of the first character of the part
+	 * @param end
+	 * 			the index after the last character of the part, which must not be in the middle of a token
+	 */
+	private void compilePart(int start, int end) {
+		if(inComment) {
+			return;
+		}
+		for(int i = start; i < end; i++) {
+			if(buffer[i] == '#') {
+				inComment = true;
+				end = i;
+				break;
+			}
+		}
+		bufferedChars.length = count;
+		srpn.compile(bufferedChars, start, end, partProgram);
+	}
+
+	/**
+	 * Method which finishes an operand longer than the buffer, and adds the push of its value to the current part.
+	 */
+	private void finishOperand() {
+		operand.finish(partProgram);
+		inOperand = false;
+	}
+
+	/**
+	 * Method which executes the current part of a long line, and clears it for the next.
+	 */
+	private void executePart() {
+		srpn.execute(partProgram);
+		partProgram.clear();
+	}
+
+	/**
+	 * The characters in the buffer, read as a character sequence without being copied.
+	 */
+	private static class BufferedChars implements CharSequence {
+		char[] chars;
+		int length;
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			return chars[index];
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, start, end - start);
+		}
+
+		public String toString() {
+			return new String(chars, 0, length);
+		}
+	}
+}
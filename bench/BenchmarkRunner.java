@@ -0,0 +1,154 @@
+/**
+ * The BenchmarkRunner class for the SRPN benchmarks, which times workloads, prints their throughput
+ * and writes the results as JSON so that runs can be compared.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnBenchmark.java
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkRunner{
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+	// The minimum length of each round in nanoseconds
+	private static final long ROUND_NANOS = 100_000_000L;
+	// How many times the workload is run between checks of the clock
+	private static final int BATCH = 16;
+
+	// Results are written here so the JIT compiler cannot remove the benchmarked code
+	static volatile long sink;
+
+	// Discards everything a benchmarked calculator prints, so only the processing is timed
+	static final SrpnOutput DISCARD = new SrpnPrintOutput(new PrintStream(OutputStream.nullOutputStream()), new PrintStream(OutputStream.nullOutputStream()));
+
+	/**
+	 * A piece of work to be timed. The returned value is consumed so the work cannot be optimised away.
+	 */
+	interface Workload{
+		long run();
+	}
+
+	/**
+	 * The throughput of each measured round of a workload.
+	 */
+	static class Result{
+		final String name;
+		final String unit;
+		final double[] roundThroughput;
+
+		Result(String name, String unit, double[] roundThroughput){
+			this.name = name;
+			this.unit = unit;
+			this.roundThroughput = roundThroughput;
+		}
+
+		double best(){
+			double best = 0;
+			for(double throughput : roundThroughput){
+				best = Math.max(best, throughput);
+			}
+			return best;
+		}
+
+		double mean(){
+			double total = 0;
+			for(double throughput : roundThroughput){
+				total += throughput;
+			}
+			return total / roundThroughput.length;
+		}
+	}
+
+	List<Result> results = new ArrayList<Result>();
+
+	/**
+	 * Method which times a workload, and prints its throughput.
+	 *
+	 * @param name
+	 * 		the name of the workload
+	 * @param unit
+	 * 		what is counted by 'unitsPerRun', e.g. chars or ops
+	 * @param unitsPerRun
+	 * 		the amount of units processed each time the workload is run
+	 * @param workload
+	 * 		the workload to be timed
+	 */
+	public void run(String name, String unit, long unitsPerRun, Workload workload){
+		run(name, unit, unitsPerRun, false, workload);
+	}
+
+	/**
+	 * Method which times a workload, and prints its throughput per microsecond, or per second for a workload
+	 * which waits on something slow, e.g. the disk.
+	 *
+	 * @param name
+	 * 		the name of the workload
+	 * @param unit
+	 * 		what is counted by 'unitsPerRun', e.g. chars or ops
+	 * @param unitsPerRun
+	 * 		the amount of units processed each time the workload is run
+	 * @param perSecond
+	 * 		whether the throughput is per second rather than per microsecond
+	 * @param workload
+	 * 		the workload to be timed
+	 */
+	public void run(String name, String unit, long unitsPerRun, boolean perSecond, Workload workload){
+		double[] roundThroughput = new double[MEASURED_ROUNDS];
+		for(int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++){
+			long runs = 0;
+			long elapsed;
+			long start = System.nanoTime();
+			do{
+				for(int i = 0; i < BATCH; i++){
+					sink += workload.run();
+				}
+				runs += BATCH;
+				elapsed = System.nanoTime() - start;
+			} while(elapsed < ROUND_NANOS);
+			if(round >= WARMUP_ROUNDS){
+				// Throughput in units per microsecond, or per second
+				roundThroughput[round - WARMUP_ROUNDS] = (double) runs * unitsPerRun * (perSecond ? 1_000_000_000 : 1000) / elapsed;
+			}
+		}
+		Result result = new Result(name, unit + (perSecond ? "/s" : "/us"), roundThroughput);
+		results.add(result);
+		System.out.printf("%-40s best %12.2f %-9s mean %12.2f %s%n", name, result.best(), result.unit, result.mean(), result.unit);
+	}
+
+	/**
+	 * Method which writes all of the results so far to a JSON file.
+	 *
+	 * @param file
+	 * 		the file to be written, any missing parent directories are created
+	 */
+	public void writeJson(Path file) throws IOException{
+		StringBuilder json = new StringBuilder("[\n");
+		for(int i = 0; i < results.size(); i++){
+			Result result = results.get(i);
+			json.append("  {\"benchmark\": \"").append(result.name)
+				.append("\", \"unit\": \"").append(result.unit)
+				.append("\", \"best\": ").append(result.best())
+				.append(", \"mean\": ").append(result.mean())
+				.append(", \"rounds\": [");
+			for(int j = 0; j < result.roundThroughput.length; j++){
+				json.append(j == 0 ? "" : ", ").append(result.roundThroughput[j]);
+			}
+			json.append("]}").append(i == results.size() - 1 ? "\n" : ",\n");
+		}
+		json.append("]\n");
+		if(file.getParent() != null){
+			Files.createDirectories(file.getParent());
+		}
+		Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
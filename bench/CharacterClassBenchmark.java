@@ -0,0 +1,69 @@
+/**
+ * Benchmark comparing the exception based character checks SRPN used to have with the 'SrpnCharacterClass' lookup table,
+ * on input which is mostly operators.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnCharacterClass.java
+ */
+
+public class CharacterClassBenchmark{
+
+	/**
+	 * Main method which runs the character class benchmarks on their own.
+	 */
+	public static void main(String[] args){
+		addBenchmarks(new BenchmarkRunner());
+	}
+
+	/**
+	 * Method which runs each of the character class benchmarks.
+	 *
+	 * @param runner
+	 * 		the runner which times the benchmarks and collects their results
+	 */
+	static void addBenchmarks(BenchmarkRunner runner){
+		final char[] characters = SrpnBenchmark.operatorHeavyLine().toCharArray();
+
+		runner.run("characterClass.legacyChecks", "chars", characters.length, () -> {
+			long matches = 0;
+			for(char c : characters){
+				if(legacyIsOperand(c) || legacyIsNonNumerical(c)){
+					matches++;
+				}
+			}
+			return matches;
+		});
+
+		runner.run("characterClass.tableClassify", "chars", characters.length, () -> {
+			long matches = 0;
+			for(char c : characters){
+				if(SrpnCharacterClass.classify(c) != SrpnCharacterClass.UNKNOWN){
+					matches++;
+				}
+			}
+			return matches;
+		});
+	}
+
+	/**
+	 * The exception based operand check SRPN used before 'SrpnCharacterClass'.
+	 */
+	static boolean legacyIsOperand(char currentChar){
+		try{
+			Integer.parseInt(Character.toString(currentChar));
+			return true;
+		}
+		catch(NumberFormatException e){
+			return false;
+		}
+	}
+
+	/**
+	 * The non-numerical check SRPN used before 'SrpnCharacterClass'.
+	 */
+	static boolean legacyIsNonNumerical(char currentChar){
+		return currentChar == '+' || currentChar == '-' || currentChar == '*' || currentChar == '/' || currentChar == '%' || currentChar == '^' || currentChar == '=' || currentChar == 'd' || currentChar == 'r';
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Benchmark comparing a formula evaluated over columns of input by 'SrpnColumnarEvaluator' with the same formula
+ * executed one row at a time by a calculator, in both 'int32' and 'int64' modes.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnColumnarEvaluator.java
+ */
+
+import java.util.Random;
+
+public class ColumnarBenchmark{
+	// The amount of rows in each column
+	private static final int ROWS = 100_000;
+	private static final String FORMULA = "$0 $1 + $2 * 3 -";
+
+	/**
+	 * Main method which runs the columnar benchmarks on their own.
+	 */
+	public static void main(String[] args){
+		addBenchmarks(new BenchmarkRunner());
+	}
+
+	/**
+	 * Method which runs each of the columnar benchmarks.
+	 *
+	 * @param runner
+	 * 		the runner which times the benchmarks and collects their results
+	 */
+	static void addBenchmarks(BenchmarkRunner runner){
+		Random random = new Random(42);
+		final int[][] columns = new int[3][ROWS];
+		final long[][] longColumns = new long[3][ROWS];
+		for(int column = 0; column < 3; column++){
+			for(int row = 0; row < ROWS; row++){
+				columns[column][row] = random.nextInt(200000) - 100000;
+				longColumns[column][row] = columns[column][row];
+			}
+		}
+
+		// The same formula, with a push for each placeholder whose value is replaced for every row
+		final SrpnProgram rowProgram = SrpnCompiler.compile("0 0 + 0 * 3 -");
+		final SrpnProcessInput calculator = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		runner.run("columnar.rowByRow", "rows", ROWS, () -> {
+			long total = 0;
+			for(int row = 0; row < ROWS; row++){
+				rowProgram.code[1] = columns[0][row];
+				rowProgram.code[3] = columns[1][row];
+				rowProgram.code[6] = columns[2][row];
+				calculator.reset();
+				calculator.execute(rowProgram);
+				total += calculator.srpnStack.peekInt();
+			}
+			return total;
+		});
+
+		final SrpnColumnarEvaluator evaluator = SrpnColumnarEvaluator.compile(FORMULA);
+		runner.run("columnar.int32", "rows", ROWS, () -> evaluator.evaluate(columns)[ROWS - 1]);
+
+		final SrpnColumnarEvaluator longEvaluator = SrpnColumnarEvaluator.compile(FORMULA, SrpnNumericMode.INT64);
+		runner.run("columnar.int64", "rows", ROWS, () -> longEvaluator.evaluate(longColumns)[ROWS - 1]);
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Benchmark comparing reading an input file through a 'BufferedReader', as interactive and batch mode do,
+ * with memory mapping it through 'SrpnMappedInput'. Each line is processed by the calculator in both cases.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnMappedInput.java
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class InputReaderBenchmark{
+	// The amount of lines in the generated input file
+	private static final int LINES = 100_000;
+
+	/**
+	 * Main method which runs the input reader benchmarks on their own.
+	 */
+	public static void main(String[] args) throws IOException{
+		addBenchmarks(new BenchmarkRunner());
+	}
+
+	/**
+	 * Method which generates an input file, and times reading and processing it each way.
+	 *
+	 * @param runner
+	 * 		the runner which times the benchmarks and collects their results
+	 */
+	static void addBenchmarks(BenchmarkRunner runner) throws IOException{
+		final Path file = Files.createTempFile("srpn-bench", ".txt");
+		file.toFile().deleteOnExit();
+		StringBuilder input = new StringBuilder();
+		String[] lines = {"1234567 7654321 + 3 * 0777 - *", "3 4 + 2 * 5 - 7 % 3 ^ 2 / *", "1 2 + * # a comment", "2147483647 1 + 99999999999 * *"};
+		for(int i = 0; i < LINES; i++){
+			input.append(lines[i % lines.length]).append('\n');
+		}
+		Files.write(file, input.toString().getBytes(Charset.defaultCharset()));
+		long fileSize = Files.size(file);
+
+		// Each line leaves the stack holding a single 0, as it found it
+		final SrpnProcessInput readerSrpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		readerSrpn.processCommand("0");
+		runner.run("input.bufferedReader", "bytes", fileSize, () -> {
+			try(BufferedReader reader = Files.newBufferedReader(file, Charset.defaultCharset())){
+				String command;
+				while((command = reader.readLine()) != null){
+					readerSrpn.processCommand(command);
+				}
+			}
+			catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			return readerSrpn.srpnStack.size();
+		});
+
+		final SrpnProcessInput mappedSrpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		mappedSrpn.processCommand("0");
+		final SrpnMappedInput mappedInput = new SrpnMappedInput();
+		runner.run("input.memoryMapped", "bytes", fileSize, () -> {
+			try{
+				mappedInput.processFile(file, mappedSrpn::processCommand);
+			}
+			catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			return mappedSrpn.srpnStack.size();
+		});
+
+		// The same again without processing the lines, to show the cost of reading on its own
+		runner.run("input.bufferedReader.readOnly", "bytes", fileSize, () -> {
+			long characters = 0;
+			try(BufferedReader reader = Files.newBufferedReader(file, Charset.defaultCharset())){
+				String command;
+				while((command = reader.readLine()) != null){
+					characters += command.length();
+				}
+			}
+			catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			return characters;
+		});
+
+		final long[] characters = new long[1];
+		runner.run("input.memoryMapped.readOnly", "bytes", fileSize, () -> {
+			try{
+				mappedInput.processFile(file, command -> characters[0] += command.length());
+			}
+			catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			return characters[0];
+		});
+	}
+}
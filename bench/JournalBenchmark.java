@@ -0,0 +1,76 @@
+/**
+ * Benchmark of appends to the journal of durable server sessions, at several batch sizes.
+ * See 'SrpnJournal' class.
+ *
+ * Each run appends a burst of lines as a server's sessions would, then waits until the last of them is on disk.
+ * With a batch size of 1 every append forces the disk, while larger batches share each write and force
+ * between as many appends as are waiting.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnJournal.java
+ */
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+
+public class JournalBenchmark{
+	private static final int[] BATCH_SIZES = {1, 8, 64, 256};
+	// The amount of sessions whose appends are interleaved
+	private static final int SESSIONS = 16;
+
+	/**
+	 * Main method which runs the journal benchmarks on their own.
+	 */
+	public static void main(String[] args) throws IOException{
+		addBenchmarks(new BenchmarkRunner());
+	}
+
+	/**
+	 * Method which runs each of the journal benchmarks, on a journal in a temporary directory.
+	 *
+	 * @param runner
+	 * 		the runner which times the benchmarks and collects their results
+	 */
+	static void addBenchmarks(BenchmarkRunner runner) throws IOException{
+		Path directory = Files.createTempDirectory("srpn-journal");
+		for(int batchSize : BATCH_SIZES){
+			Path file = directory.resolve("batch" + batchSize + ".journal");
+			timeAppends(runner, file, batchSize);
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	/**
+	 * Method which times bursts of appends, each of four batches' worth so each run waits for a few forces of the disk.
+	 */
+	private static void timeAppends(BenchmarkRunner runner, Path file, int batchSize) throws IOException{
+		final SrpnJournal journal = new SrpnJournal(file, SrpnNumericMode.INT32, SrpnServer.DEFAULT_SESSION_BUFFER,
+			name -> new SrpnSession(name, SrpnNumericMode.INT32, SrpnServer.DEFAULT_SESSION_BUFFER));
+		journal.setMaxBatch(batchSize);
+		// The journal is not compacted, so only appends are timed
+		journal.setCompactSize(Long.MAX_VALUE);
+		final CharBuffer line = CharBuffer.wrap("1234567 7654321 + 3 * =\n");
+		final String[] names = new String[SESSIONS];
+		for(int i = 0; i < SESSIONS; i++){
+			names[i] = "session-" + i;
+		}
+		final int appends = 4 * batchSize;
+		final Semaphore done = new Semaphore(0);
+
+		runner.run("journal.appendBatch" + batchSize, "appends", appends, true, () -> {
+			for(int i = 0; i < appends - 1; i++){
+				journal.appendInput(names[i % SESSIONS], line, null);
+			}
+			journal.appendInput(names[(appends - 1) % SESSIONS], line, failure -> done.release());
+			done.acquireUninterruptibly();
+			return appends;
+		});
+		journal.close();
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * Benchmark comparing a calculator without metrics against one which counts its work in 'SrpnMetrics',
+ * on the same lines, both compiled and cached.
+ *
+ * Without metrics, 'SrpnMeteredProcessInput' is never loaded, so the calculator's calls to the stack stay monomorphic.
+ * The benchmark without metrics is therefore run first, and these benchmarks are run after all of the others.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnMetrics.java
+ */
+
+public class MetricsBenchmark{
+
+	/**
+	 * Main method which runs the metrics benchmarks on their own.
+	 */
+	public static void main(String[] args){
+		addBenchmarks(new BenchmarkRunner());
+	}
+
+	/**
+	 * Method which runs each of the metrics benchmarks.
+	 *
+	 * @param runner
+	 * 		the runner which times the benchmarks and collects their results
+	 */
+	static void addBenchmarks(BenchmarkRunner runner){
+		final String line = SrpnBenchmark.operatorHeavyLine();
+		final String shortLine = "3 4 + 2 * 5 - 7 % 3 ^ 2 / *";
+
+		timeLine(runner, "metrics.disabled", line, SrpnNumericMode.INT32.createCalculator(BenchmarkRunner.DISCARD, null), false);
+		timeLine(runner, "metrics.disabledShortLineCached", shortLine, SrpnNumericMode.INT32.createCalculator(BenchmarkRunner.DISCARD, null), true);
+
+		SrpnMetrics metrics = new SrpnMetrics();
+		timeLine(runner, "metrics.enabled", line, SrpnNumericMode.INT32.createCalculator(BenchmarkRunner.DISCARD, metrics), false);
+		timeLine(runner, "metrics.enabledShortLineCached", shortLine, SrpnNumericMode.INT32.createCalculator(BenchmarkRunner.DISCARD, metrics), true);
+	}
+
+	/**
+	 * Method which times a calculator processing a line which leaves the stack as it found it, holding a single 0.
+	 */
+	private static void timeLine(BenchmarkRunner runner, String name, final String line, final SrpnCalculator srpn, boolean cached){
+		if(cached){
+			srpn.setProgramCache(new SrpnProgramCache());
+		}
+		srpn.processCommand("0");
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.processCommand(line);
+			return line.length();
+		});
+	}
+}
@@ -0,0 +1,227 @@
+/**
+ * The benchmarks for SRPN. Times 'SrpnProcessInput.processCommand' on representative lines of input,
+ * 'SrpnStack' pushes and pops, and each of the 'Operator' kernels, and writes the results as JSON.
+ *
+ * Run with 'gradle bench', or pass the JSON file to write as the only argument.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See BenchmarkRunner.java
+ */
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class SrpnBenchmark{
+	// How many times each group of tokens is repeated to make up a line
+	private static final int GROUPS_PER_LINE = 50;
+	// How many calls are made each time a stack or operator workload is run
+	private static final int CALLS_PER_RUN = 1000;
+
+	/**
+	 * Main method which runs every benchmark, and writes the results to the given JSON file.
+	 */
+	public static void main(String[] args) throws IOException{
+		String resultFile = (args.length > 0) ? args[0] : "build/bench/results.json";
+		BenchmarkRunner runner = new BenchmarkRunner();
+
+		addProcessCommandBenchmarks(runner);
+		addStackBenchmarks(runner);
+		addOperatorBenchmarks(runner);
+		CharacterClassBenchmark.addBenchmarks(runner);
+		InputReaderBenchmark.addBenchmarks(runner);
+		ColumnarBenchmark.addBenchmarks(runner);
+		JournalBenchmark.addBenchmarks(runner);
+		// Run last, as a calculator with metrics changes how the calculator is compiled for the rest of the run
+		MetricsBenchmark.addBenchmarks(runner);
+
+		runner.writeJson(Paths.get(resultFile));
+		System.out.println("Results written to " + resultFile);
+	}
+
+	/**
+	 * Method which times 'processCommand' on each of the representative lines of input.
+	 * Each line leaves the stack as it found it, holding a single 0, so the same engine can process it repeatedly.
+	 */
+	static void addProcessCommandBenchmarks(BenchmarkRunner runner){
+		timeLine(runner, "processCommand.numeric", repeat("1234567 7654321 2345678 8765432 3456789 9876543 4567890 1098765 5678901 2109876 + + + + + + + + + * "));
+		timeLine(runner, "processCommand.operatorHeavy", operatorHeavyLine());
+		timeLine(runner, "processCommand.octalHeavy", repeat("0777 012345670 -07654321 017777777777 -0123 + + + + * "));
+		timeLine(runner, "processCommand.commentTruncated", "1 2 + * # " + repeat("1234567 + 0777 * junk "));
+		timeLine(runner, "processCommand.saturation", repeat("2147483647 1 + -2147483648 1 - * 99999999999 -99999999999 * 2 40 ^ * * * "));
+		timeProgram(runner, "execute.numeric", repeat("1234567 7654321 2345678 8765432 3456789 9876543 4567890 1098765 5678901 2109876 + + + + + + + + + * "));
+		timeProgram(runner, "execute.operatorHeavy", operatorHeavyLine());
+		timeProgram(runner, "execute.octalHeavy", repeat("0777 012345670 -07654321 017777777777 -0123 + + + + * "));
+		timeOptimizedProgram(runner, "execute.numericFolded", repeat("1234567 7654321 2345678 8765432 3456789 9876543 4567890 1098765 5678901 2109876 + + + + + + + + + * "));
+		timeOptimizedProgram(runner, "execute.operatorHeavyFolded", operatorHeavyLine());
+		timeModeLine(runner, "processCommand.numericInt64", SrpnNumericMode.INT64, repeat("1234567 7654321 2345678 8765432 3456789 9876543 4567890 1098765 5678901 2109876 + + + + + + + + + * "));
+		timeModeLine(runner, "processCommand.numericBigint", SrpnNumericMode.BIG_INTEGER, repeat("1234567 7654321 2345678 8765432 3456789 9876543 4567890 1098765 5678901 2109876 + + + + + + + + + * "));
+		timeModeLine(runner, "processCommand.operatorHeavyInt64", SrpnNumericMode.INT64, operatorHeavyLine());
+		timeModeLine(runner, "processCommand.operatorHeavyBigint", SrpnNumericMode.BIG_INTEGER, operatorHeavyLine());
+		timeCachedLine(runner, "processCommand.shortLine", "3 4 + 2 * 5 - 7 % 3 ^ 2 / *", null);
+		timeCachedLine(runner, "processCommand.shortLineCached", "3 4 + 2 * 5 - 7 % 3 ^ 2 / *", new SrpnProgramCache());
+	}
+
+	/**
+	 * Method which builds a line of input that is mostly operators.
+	 *
+	 * @return the input line
+	 */
+	static String operatorHeavyLine(){
+		return repeat("3 4 + 2 * 5 - 7 % 3 ^ 2 / * ");
+	}
+
+	/**
+	 * Method which repeats a group of tokens to make up a line of input.
+	 */
+	static String repeat(String group){
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < GROUPS_PER_LINE; i++){
+			line.append(group);
+		}
+		return line.toString();
+	}
+
+	/**
+	 * Method which times 'processCommand' on a line, with a 0 on the stack.
+	 */
+	static void timeLine(BenchmarkRunner runner, String name, final String line){
+		final SrpnProcessInput srpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		srpn.processCommand("0");
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.processCommand(line);
+			return 0;
+		});
+	}
+
+	/**
+	 * Method which times 'processCommand' on a line in one of the wider numeric modes, with a 0 on the stack.
+	 */
+	static void timeModeLine(BenchmarkRunner runner, String name, SrpnNumericMode mode, final String line){
+		final SrpnCalculator srpn = mode.createCalculator(BenchmarkRunner.DISCARD);
+		srpn.processCommand("0");
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.processCommand(line);
+			return 0;
+		});
+	}
+
+	/**
+	 * Method which times 'processCommand' on a short line, as typed interactively, with or without a cache of compiled lines.
+	 */
+	static void timeCachedLine(BenchmarkRunner runner, String name, final String line, SrpnProgramCache cache){
+		final SrpnProcessInput srpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		srpn.setProgramCache(cache);
+		srpn.processCommand("0");
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.processCommand(line);
+			return 0;
+		});
+	}
+
+	/**
+	 * Method which times executing a line which has already been compiled, with a 0 on the stack.
+	 */
+	static void timeProgram(BenchmarkRunner runner, String name, final String line){
+		final SrpnProcessInput srpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		srpn.processCommand("0");
+		final SrpnProgram program = SrpnCompiler.compile(line);
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.execute(program);
+			return 0;
+		});
+	}
+
+	/**
+	 * Method which times executing a line which has already been compiled and had its literal-only calculations folded,
+	 * with a 0 on the stack.
+	 */
+	static void timeOptimizedProgram(BenchmarkRunner runner, String name, final String line){
+		final SrpnProcessInput srpn = new SrpnProcessInput(BenchmarkRunner.DISCARD);
+		srpn.processCommand("0");
+		final SrpnProgram program = SrpnOptimizer.optimize(SrpnCompiler.compile(line));
+		runner.run(name, "chars", line.length(), () -> {
+			srpn.execute(program);
+			return 0;
+		});
+	}
+
+	/**
+	 * Method which times pushing an integer onto the stack and popping it back off.
+	 */
+	static void addStackBenchmarks(BenchmarkRunner runner){
+		final SrpnStack stack = new SrpnStack(BenchmarkRunner.DISCARD);
+		runner.run("stack.pushIntPopInt", "ops", CALLS_PER_RUN, () -> {
+			long total = 0;
+			for(int i = 0; i < CALLS_PER_RUN; i++){
+				stack.pushInt(i);
+				total += stack.popInt();
+			}
+			return total;
+		});
+
+		runner.run("stack.fillAndDrain", "ops", SrpnStack.MAX_SIZE * 2, () -> {
+			long total = 0;
+			for(int i = 0; i < SrpnStack.MAX_SIZE; i++){
+				stack.pushInt(i);
+			}
+			for(int i = 0; i < SrpnStack.MAX_SIZE; i++){
+				total += stack.popInt();
+			}
+			return total;
+		});
+	}
+
+	/**
+	 * Method which times each of the 'Operator' kernels, including pushing the result to the stack and popping it back off.
+	 */
+	static void addOperatorBenchmarks(BenchmarkRunner runner){
+		timeOperator(runner, "operator.add", Operator.ADD);
+		timeOperator(runner, "operator.subtract", Operator.SUBTRACT);
+		timeOperator(runner, "operator.multiply", Operator.MULTIPLY);
+		timeOperator(runner, "operator.divide", Operator.DIVIDE);
+		timeOperator(runner, "operator.modulus", Operator.MODULUS);
+		timeOperator(runner, "operator.exponent", Operator.EXPONENT);
+		timePower(runner);
+	}
+
+	/**
+	 * Method which times the saturating power calculation, against the 'Math.pow' calculation it replaced.
+	 * Bases and exponents cover both results inside the integer range and results which saturate.
+	 */
+	static void timePower(BenchmarkRunner runner){
+		runner.run("power.mathPow", "ops", CALLS_PER_RUN, () -> {
+			long total = 0;
+			for(int i = 0; i < CALLS_PER_RUN; i++){
+				long result = (long) Math.pow(i - 500, i & 31);
+				total += Math.max(-2147483648L, Math.min(2147483647L, result));
+			}
+			return total;
+		});
+		runner.run("power.bySquaring", "ops", CALLS_PER_RUN, () -> {
+			long total = 0;
+			for(int i = 0; i < CALLS_PER_RUN; i++){
+				long result = Operator.power(i - 500, i & 31);
+				total += Math.max(-2147483648L, Math.min(2147483647L, result));
+			}
+			return total;
+		});
+	}
+
+	/**
+	 * Method which times a single 'Operator' kernel over a range of operands.
+	 */
+	static void timeOperator(BenchmarkRunner runner, String name, final Operator operator){
+		final SrpnStack stack = new SrpnStack(BenchmarkRunner.DISCARD);
+		runner.run(name, "ops", CALLS_PER_RUN, () -> {
+			long total = 0;
+			for(int i = 0; i < CALLS_PER_RUN; i++){
+				// The first operand is kept between 1 and 8, so it is never a divisor of 0 or a large power
+				stack.pushInt(operator.apply((i & 7) + 1, i));
+				total += stack.popInt();
+			}
+			return total;
+		});
+	}
+}
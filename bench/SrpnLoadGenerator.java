@@ -0,0 +1,250 @@
+/**
+ * The load generator for SRPN's server mode. Opens many connections to a server, pipelines requests down each of them,
+ * and reports the throughput and the latency of each request, from when it was sent until its response was read.
+ * See 'SrpnServer' class.
+ *
+ * Usage: java SrpnLoadGenerator [--host HOST] [--port PORT] [--server] [--journal FILE] [--connections N] [--requests N]
+ * 		[--pipeline N] [--file FILE] [--session PREFIX]
+ * With '--server', a server is started in the same program on a free port, so nothing else needs to be running,
+ * which appends its named sessions to '--journal' if it is given.
+ * Each connection sends '--requests' lines (100000 by default), with at most '--pipeline' of them waiting for
+ * their responses at once (64 by default). The lines are those of '--file', repeated as many times as needed,
+ * or by default a pair of lines which print a result each and leave the stack as they found it.
+ * With '--session', each connection first names a session of its own, PREFIX-0, PREFIX-1 and so on.
+ *
+ * Run with 'gradle loadTest' to run it against a server of its own.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnServer.java
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SrpnLoadGenerator{
+	// The lines sent by default, which print a result each, with the stack holding one or two values between them
+	private static final String[] DEFAULT_LINES = {"1234567 7654321 + 3 * =", "+ 1000003 % ="};
+
+	/**
+	 * Main method which runs the connections at once, and prints their combined throughput and latency.
+	 */
+	public static void main(String[] args) throws Exception{
+		String host = "127.0.0.1";
+		int port = SrpnServer.DEFAULT_PORT;
+		boolean inProcess = false;
+		int connections = 4;
+		int requests = 100_000;
+		int pipeline = 64;
+		String[] lines = DEFAULT_LINES;
+		String journalFile = null;
+		String sessionPrefix = null;
+		for(int i = 0; i < args.length; i++){
+			if(args[i].equals("--host") && i + 1 < args.length){
+				host = args[++i];
+			}
+			else if(args[i].equals("--port") && i + 1 < args.length){
+				port = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--server")){
+				inProcess = true;
+			}
+			else if(args[i].equals("--journal") && i + 1 < args.length){
+				journalFile = args[++i];
+			}
+			else if(args[i].equals("--connections") && i + 1 < args.length){
+				connections = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--requests") && i + 1 < args.length){
+				requests = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--pipeline") && i + 1 < args.length){
+				pipeline = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("--file") && i + 1 < args.length){
+				List<String> fileLines = Files.readAllLines(Paths.get(args[++i]));
+				lines = fileLines.toArray(new String[0]);
+			}
+			else if(args[i].equals("--session") && i + 1 < args.length){
+				sessionPrefix = args[++i];
+			}
+		}
+
+		SrpnServer server = null;
+		if(inProcess){
+			server = startServer(journalFile);
+			host = server.getAddress().getHostString();
+			port = server.getAddress().getPort();
+		}
+
+		Client[] clients = new Client[connections];
+		Thread[] threads = new Thread[connections];
+		for(int i = 0; i < connections; i++){
+			String session = (sessionPrefix == null) ? null : sessionPrefix + "-" + i;
+			clients[i] = new Client(new InetSocketAddress(host, port), session, lines, requests, pipeline);
+			threads[i] = new Thread(clients[i], "srpn-client-" + i);
+		}
+		long start = System.nanoTime();
+		for(Thread thread : threads){
+			thread.start();
+		}
+		for(Thread thread : threads){
+			thread.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		SrpnLatencyHistogram latencies = new SrpnLatencyHistogram();
+		long responses = 0;
+		for(Client client : clients){
+			latencies.add(client.latencies);
+			responses += client.responses;
+			if(client.failure != null){
+				System.err.println(client.failure.getMessage());
+			}
+		}
+		System.out.println(String.format("connections: %d, pipeline: %d", connections, pipeline));
+		System.out.println(String.format("requests: %d of %d answered in %.2f s (%.0f per second)",
+			responses, (long) connections * requests, seconds, responses / seconds));
+		System.out.println(String.format("latency (microseconds): mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+			latencies.getMean() / 1e3, latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(90) / 1e3,
+			latencies.getValueAtPercentile(99) / 1e3, latencies.getValueAtPercentile(99.9) / 1e3, latencies.getMax() / 1e3));
+
+		if(server != null){
+			server.close();
+		}
+	}
+
+	/**
+	 * Method which starts a server on a free port of this machine, accepting connections on a thread of its own.
+	 *
+	 * @param journalFile
+	 * 		the journal the server's named sessions are appended to, or null for none
+	 */
+	private static SrpnServer startServer(String journalFile) throws IOException{
+		SrpnServer server = new SrpnServer(new InetSocketAddress("127.0.0.1", 0), Runtime.getRuntime().availableProcessors());
+		if(journalFile != null){
+			server.openJournal(Paths.get(journalFile));
+		}
+		Thread acceptor = new Thread(() -> {
+			try{
+				server.serve();
+			} catch(IOException e){
+				System.err.println(e.getMessage());
+			}
+		}, "srpn-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return server;
+	}
+
+	/**
+	 * A single connection, which sends its requests on one thread while reading their responses on another.
+	 */
+	static class Client implements Runnable{
+		private final InetSocketAddress address;
+		// The first line sent, naming the connection's session, or null
+		private final byte[] header;
+		private final byte[][] requestBytes;
+		private final int requests;
+		private final int pipeline;
+
+		// When each request waiting for its response was sent, indexed by its number modulo the pipeline depth
+		private final AtomicLongArray sendTimes;
+		// Taken before each request is sent, and given back as its response is read
+		private final Semaphore window;
+
+		final SrpnLatencyHistogram latencies = new SrpnLatencyHistogram();
+		long responses = 0;
+		volatile IOException failure = null;
+
+		Client(InetSocketAddress address, String session, String[] lines, int requests, int pipeline){
+			this.address = address;
+			header = (session == null) ? null : ("#session " + session + "\n").getBytes(StandardCharsets.UTF_8);
+			this.requests = requests;
+			this.pipeline = pipeline;
+			requestBytes = new byte[lines.length][];
+			for(int i = 0; i < lines.length; i++){
+				requestBytes[i] = (lines[i] + "\n").getBytes(StandardCharsets.UTF_8);
+			}
+			sendTimes = new AtomicLongArray(pipeline);
+			window = new Semaphore(pipeline);
+		}
+
+		public void run(){
+			try(Socket socket = new Socket(address.getAddress(), address.getPort())){
+				socket.setTcpNoDelay(true);
+				Thread sender = new Thread(() -> send(socket), Thread.currentThread().getName() + "-sender");
+				sender.setDaemon(true);
+				sender.start();
+				receive(socket.getInputStream());
+			} catch(IOException e){
+				failure = e;
+			}
+		}
+
+		/**
+		 * Method which sends every request, only flushing them when the pipeline is full or every request has been sent.
+		 */
+		private void send(Socket socket){
+			try{
+				OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+				if(header != null){
+					out.write(header);
+				}
+				for(int i = 0; i < requests; i++){
+					if(!window.tryAcquire()){
+						out.flush();
+						window.acquireUninterruptibly();
+					}
+					sendTimes.set(i % pipeline, System.nanoTime());
+					out.write(requestBytes[i % requestBytes.length]);
+				}
+				out.flush();
+			} catch(IOException e){
+				failure = e;
+			}
+		}
+
+		/**
+		 * Method which reads responses until every request has been answered. Each response ends with an empty line.
+		 * The response to naming a session is only an empty line, which is not counted.
+		 */
+		private void receive(InputStream socketIn) throws IOException{
+			InputStream in = new BufferedInputStream(socketIn, 1 << 16);
+			boolean atLineStart = true;
+			boolean named = header == null;
+			int b;
+			while(responses < requests && (b = in.read()) >= 0){
+				if(b == '\n'){
+					if(atLineStart && !named){
+						named = true;
+					}
+					else if(atLineStart){
+						latencies.record(System.nanoTime() - sendTimes.get((int) (responses % pipeline)));
+						responses++;
+						window.release();
+					}
+					atLineStart = true;
+				}
+				else if(b != '\r'){
+					atLineStart = false;
+				}
+			}
+			if(responses < requests){
+				throw new IOException("Connection closed after " + responses + " of " + requests + " responses.");
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * Property test comparing how octal literals are read by 'SrpnCompiler' and 'SrpnOperandAccumulator' with the
+ * string based 'getOctValue' and 'calculateOct' methods SRPN used to have, on random octals built to reach each of their quirks.
+ *
+ * @author Thomas Vanner
+ * @version 1.0
+ * @release 25/11/2016
+ * @See SrpnCompiler.java
+ */
+
+import java.util.Random;
+
+public class OctalLiteralPropertyTest{
+	// The amount of random octals generated for each property, and the seed they are generated from
+	private static final int CASES = 2000;
+	private static final long SEED = 25112016L;
+
+	// Decimal digits outside of ASCII: Arabic-Indic, Devanagari and fullwidth
+	private static final char[] NON_ASCII_ZEROS = {'\u0660', '\u0966', '\uff10'};
+
+	private static int failures = 0;
+
+	/**
+	 * Main method which checks every property, and exits with a failure status if any octal was read differently.
+	 */
+	public static void main(String[] args){
+		Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : SEED);
+		int cases = 0;
+		for(int n = 0; n < CASES; n++){
+			// Short octals, with '8' and '9' digits which stop them
+			check(octal(random, random.nextBoolean(), 1 + random.nextInt(14), 10, false));
+			// Octals of about ten digits, around the integer range and the -10^9 rule
+			check(octal(random, random.nextBoolean(), 9 + random.nextInt(4), 8, false));
+			// Octals with many leading zeros, which are only kept when negative
+			check(zeros(random.nextInt(20)) + octal(random, false, 1 + random.nextInt(12), 8, false));
+			check("-" + zeros(1 + random.nextInt(20)) + octal(random, false, 1 + random.nextInt(12), 8, false).substring(1));
+			// Octals around 342 significant digits, whose most significant digit decides the value
+			check(octal(random, random.nextBoolean(), 335 + random.nextInt(15), random.nextInt(4) == 0 ? 10 : 8, false));
+			// Octals holding non-ASCII digits, including the values 8 and 9 which do not stop them
+			check(octal(random, random.nextBoolean(), 1 + random.nextInt(12), 10, true));
+			check(octal(random, random.nextBoolean(), 335 + random.nextInt(15), 10, true));
+			cases += 7;
+		}
+		// The edges of each rule
+		check("00");
+		check("-0");
+		check("-00");
+		check("08");
+		check("-09");
+		check("017777777777");
+		check("020000000000");
+		check("-07346544777");
+		check("-07346545000");
+		check("-07346545001");
+		check("0" + repeat('1', 342));
+		check("0" + repeat('1', 343));
+		check("01" + zeros(342));
+		check("-" + zeros(343) + "1");
+		check("-" + zeros(342) + "1");
+		check("0" + repeat('\u0668', 20));
+		cases += 16;
+
+		if(failures > 0){
+			System.err.println(failures + " of " + cases + " octals were read differently.");
+			System.exit(1);
+		}
+		System.out.println(cases + " octals were read the same.");
+	}
+
+	/**
+	 * Method which builds a random octal operand, always starting with '0' so it is read as one.
+	 *
+	 * @param random
+	 * 		the source of the digits
+	 * @param isNegative
+	 * 		whether or not the operand is preceeded by a '-'
+	 * @param length
+	 * 		the amount of digits after the leading '0'
+	 * @param radix
+	 * 		the digit values used, 8 for only octal digits or 10 to include '8' and '9'
+	 * @param nonAscii
+	 * 		whether or not some of the digits are taken from outside of ASCII
+	 *
+	 * @return the operand
+	 */
+	private static String octal(Random random, boolean isNegative, int length, int radix, boolean nonAscii){
+		StringBuilder operand = new StringBuilder(length + 2);
+		if(isNegative){
+			operand.append('-');
+		}
+		operand.append('0');
+		for(int i = 0; i < length; i++){
+			// '8' and '9' are kept rare, so most octals run on past the first few digits
+			int digit = random.nextInt(radix == 10 && random.nextInt(8) != 0 ? 8 : radix);
+			if(nonAscii && random.nextBoolean()){
+				operand.append((char) (NON_ASCII_ZEROS[random.nextInt(NON_ASCII_ZEROS.length)] + digit));
+			}
+			else{
+				operand.append((char) ('0' + digit));
+			}
+		}
+		return operand.toString();
+	}
+
+	private static String zeros(int count){
+		return repeat('0', count);
+	}
+
+	private static String repeat(char c, int count){
+		StringBuilder s = new StringBuilder(count);
+		for(int i = 0; i < count; i++){
+			s.append(c);
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Method which checks that an octal operand is read the same by the legacy methods, 'SrpnCompiler.octalValue',
+	 * a compiled line and 'SrpnOperandAccumulator', and reports it if not.
+	 *
+	 * @param operand
+	 * 		the operand, with any '-' before it
+	 */
+	private static void check(String operand){
+		int expected = legacyValue(operand);
+		boolean isNegative = operand.charAt(0) == '-';
+		int firstDigit = isNegative ? 1 : 0;
+
+		int octalValue = SrpnCompiler.octalValue(operand, firstDigit, operand.length(), isNegative);
+
+		SrpnProgram compiled = SrpnCompiler.compile(operand);
+		int compiledValue = compiled.code[1];
+
+		SrpnOperandAccumulator accumulator = new SrpnOperandAccumulator(SrpnNumericMode.INT32);
+		accumulator.start(isNegative);
+		for(int i = firstDigit; i < operand.length(); i++){
+			accumulator.add(operand.charAt(i));
+		}
+		SrpnProgram accumulated = new SrpnProgram();
+		accumulator.finish(accumulated);
+		int accumulatedValue = accumulated.code[1];
+
+		if(octalValue != expected || compiledValue != expected || accumulatedValue != expected){
+			// Only the first few are printed, as a broken rule usually fails many octals
+			if(failures++ < 10){
+				System.err.println(operand + ": expected " + expected + ", octalValue " + octalValue + ", compiled "
+						+ compiledValue + ", accumulated " + accumulatedValue);
+			}
+		}
+	}
+
+	/**
+	 * The value SRPN used to push for an octal operand, from its 'getOctValue', 'calculateOct'
+	 * and 'elementSaturationCheck' methods.
+	 */
+	private static int legacyValue(String operand){
+		String octValue = getOctValue(operand);
+		boolean isNegative = false;
+		int decimalValue = 0;
+		int exponent = 0;
+		for(int i = octValue.length() - 1; i >= 0; i--, exponent++){
+			char currentOctValue = octValue.charAt(i);
+			if(currentOctValue == '-'){
+				isNegative = true;
+				continue;
+			}
+			decimalValue += Character.getNumericValue(currentOctValue) * Math.pow(8, exponent);
+		}
+		if(isNegative){
+			decimalValue *= -1;
+		}
+
+		// The saturated value pushed in place of an octal which fails the saturation check
+		String elementToPush = Integer.toString(decimalValue);
+		if(elementToPush.length() > 10){
+			return elementToPush.contains("-") ? -2147483648 : 2147483647;
+		}
+		long elementHolder = Long.parseLong(elementToPush);
+		if(elementHolder > 2147483647){
+			return 2147483647;
+		}
+		else if(elementHolder < -2147483648){
+			return -2147483648;
+		}
+		return decimalValue;
+	}
+
+	private static String getOctValue(String octOperand){
+		String octValue = "";
+		for(int i = 0; i < octOperand.length(); i++){
+			char currentCharacter = octOperand.charAt(i);
+			if(currentCharacter == '8' || currentCharacter == '9'){
+				break;
+			}
+			else if(currentCharacter != '0' || octValue != ""){
+				octValue += octOperand.charAt(i);
+			}
+		}
+		return octValue;
+	}
+}